@@ -1,6 +1,14 @@
 package io.beyonnex;
 
 import io.beyonnex.service.AnagramCli;
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.cluster.ClusterAnagramDictionary;
+import io.beyonnex.service.cluster.ClusterNode;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Main class is the main entry point for the application. It reads user inputs
@@ -11,18 +19,53 @@ import io.beyonnex.service.AnagramCli;
  * and exiting the application.
  * <p>
  * The application uses LOGGER to display the outcome of user options and any notifications or errors.
+ * <p>
+ * Besides the default, local mode, the application can run as a cluster node ({@code node <port>}),
+ * or run the CLI against a running cluster ({@code cluster <host:port>,<host:port>,...}).
+ * <p>
+ * In local mode, the CLI answers from the dictionary index packaged by the fast-start build profile, if there is one.
  */
 public class Main {
 
     /**
      * The main method is where the program execution begins.
      *
-     * @param args Command line arguments provided when the application was invoked (not used)
+     * @param args Command line arguments selecting the mode of the application, none for the local CLI
+     * @throws IOException if the cluster node cannot be started or the cluster cannot be reached
      */
-    public static void main(String[] args) {
-        AnagramCli anagramCli = new AnagramCli();
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("node")) {
+            new ClusterNode(new InetSocketAddress(Integer.parseInt(args[1])));
+            return;
+        }
+
+        if (args.length == 2 && args[0].equals("cluster")) {
+            List<InetSocketAddress> nodes = new ArrayList<>();
+            for (String node : args[1].split(",")) {
+                String[] hostAndPort = node.trim().split(":");
+                nodes.add(new InetSocketAddress(hostAndPort[0], Integer.parseInt(hostAndPort[1])));
+            }
+            try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(nodes)) {
+                new AnagramCli(new AnagramService(dictionary)).runAnagramFinder();
+            }
+            return;
+        }
+
+        AnagramCli anagramCli = new AnagramCli(createLocalService());
         anagramCli.runAnagramFinder();
     }
 
+    /**
+     * Creates the service of the local CLI. If the application was packaged with a dictionary index, the service
+     * answers from it, reading the index on first use; otherwise it starts with an empty dictionary.
+     *
+     * @return the service for the local CLI
+     */
+    public static AnagramService createLocalService() {
+        if (Main.class.getResource(AnagramService.INDEX_RESOURCE) != null) {
+            return AnagramService.fromIndexResource(AnagramService.INDEX_RESOURCE);
+        }
+        return new AnagramService();
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package io.beyonnex.faststart;
+
+import io.beyonnex.service.AnagramService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The DictionaryIndexBuilder turns a word list into the compact dictionary index packaged with the application.
+ * It runs at build time in the fast-start profile and writes the index into the classes directory, where
+ * AnagramService.fromIndexResource finds it at runtime.
+ * <p>
+ * The word list holds one word or phrase per line; blank lines and lines starting with '#' are skipped. Signatures
+ * are computed by the AnagramService without any active modes, so the index holds the same groups the service would
+ * build from the same inputs. The index is written in the DictionarySnapshot format.
+ */
+public class DictionaryIndexBuilder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryIndexBuilder.class);
+
+    private DictionaryIndexBuilder() {
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @param args - the word list file and the index file to be written
+     * @throws IOException - if the word list cannot be read or the index cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path wordList = Path.of(args[0]);
+        Path index = Path.of(args[1]);
+
+        List<String> words = Files.readAllLines(wordList).stream()
+                .map(String::strip)
+                .filter(word -> !word.isEmpty() && !word.startsWith("#"))
+                .toList();
+        AnagramService anagramService = new AnagramService();
+        for (String word : words) {
+            anagramService.addWord(word);
+        }
+
+        if (index.getParent() != null) {
+            Files.createDirectories(index.getParent());
+        }
+        anagramService.saveSnapshot(index);
+        LOGGER.info("Indexed {} words in {} anagram groups into {} ({} bytes)", words.size(),
+                anagramService.getStatistics(0).groups(), index, Files.size(index));
+    }
+}
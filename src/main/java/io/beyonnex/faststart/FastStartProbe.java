@@ -0,0 +1,70 @@
+package io.beyonnex.faststart;
+
+import io.beyonnex.Main;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The FastStartProbe runs the shipped entry point, Main, in local mode with a scripted CLI session. The first session
+ * asks for the anagrams of a word and exits; the probe reports how long that took from JVM start. A second session
+ * then goes through every option of the CLI.
+ * <p>
+ * The fast-start build profile runs it twice: once as the training run recording the loaded classes into a
+ * class-data-sharing archive, and once starting from that archive, so the build output shows the CLI's time to first
+ * answer with and without the archive.
+ */
+public class FastStartProbe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FastStartProbe.class);
+    private static final String FIRST_QUESTION = "listen";
+    private static final List<String> FIRST_SESSION = List.of("2", FIRST_QUESTION, "7");
+    private static final List<String> TRAINING_SESSION = List.of(
+            "1", "Dormitory", "Dirty room",
+            "2", "evil",
+            "3", "LATIN", "1", "vile", "evil", "2", "silent",
+            "3", "MODERN", "2", "Listen!",
+            "4", "LATIN", "4", "MODERN",
+            "5",
+            "6",
+            "8",
+            "7");
+
+    private FastStartProbe() {
+    }
+
+    /**
+     * Runs the probe.
+     *
+     * @param args - a label for the run shown in the report, e.g. "training" or "cds"
+     * @throws IOException - if the CLI cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        InputStream stdin = System.in;
+        try {
+            System.setIn(session(FIRST_SESSION));
+            Main.main(new String[0]);
+            long answeredMillis = System.currentTimeMillis();
+
+            long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+            String label = args.length > 0 ? args[0] : "run";
+            LOGGER.info("Time to first answer ({}): {} ms after JVM start, for the anagrams of '{}' asked in the CLI",
+                    label, answeredMillis - jvmStartMillis, FIRST_QUESTION);
+
+            System.setIn(session(TRAINING_SESSION));
+            Main.main(new String[0]);
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    private static InputStream session(List<String> lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
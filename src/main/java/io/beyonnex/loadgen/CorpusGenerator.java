@@ -0,0 +1,118 @@
+package io.beyonnex.loadgen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * The CorpusGenerator creates synthetic anagram corpora resembling English text. Letters are drawn by their
+ * frequency in English, word lengths by the length distribution of English words, and most words have no or only
+ * a few anagrams.
+ * <p>
+ * Like user input, some members of a group are capitalized or written as phrases with spaces and punctuation.
+ * The letters 'i', 'u', 'v', 's' and 'c' are common, so the LATIN and MODERN modes change many signatures.
+ */
+public class CorpusGenerator {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final double[] LETTER_FREQUENCIES = {
+            8.2, 1.5, 2.8, 4.3, 12.7, 2.2, 2.0, 6.1, 7.0, 0.15, 0.77, 4.0, 2.4,
+            6.7, 7.5, 1.9, 0.095, 6.0, 6.3, 9.1, 2.8, 0.98, 2.4, 0.15, 2.0, 0.074
+    };
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final double[] WORD_LENGTH_FREQUENCIES = {
+            7.0, 13.0, 15.0, 15.0, 14.0, 12.0, 9.0, 6.0, 4.0, 2.5, 1.5, 1.0, 0.5
+    };
+    private static final int MAX_GROUP_SIZE = 8;
+    private static final String PUNCTUATION = ".,!?'-";
+
+    private final RandomGenerator random;
+    private final double[] letterDistribution = cumulative(LETTER_FREQUENCIES);
+    private final double[] wordLengthDistribution = cumulative(WORD_LENGTH_FREQUENCIES);
+
+    /**
+     * Creates a generator drawing from the given source of randomness, so equal seeds give equal corpora.
+     *
+     * @param random - the source of randomness
+     */
+    public CorpusGenerator(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Generates the given number of anagram groups. Each group holds at least one string, and all strings
+     * of a group are anagrams of each other.
+     *
+     * @param groups - the number of groups
+     * @return the groups
+     */
+    public List<List<String>> generate(int groups) {
+        List<List<String>> corpus = new ArrayList<>(groups);
+        for (int i = 0; i < groups; i++) {
+            char[] letters = new char[MIN_WORD_LENGTH + draw(wordLengthDistribution)];
+            for (int j = 0; j < letters.length; j++) {
+                letters[j] = LETTERS.charAt(draw(letterDistribution));
+            }
+
+            int groupSize = 1;
+            while (groupSize < MAX_GROUP_SIZE && random.nextBoolean()) {
+                groupSize++;
+            }
+            Set<String> group = new LinkedHashSet<>();
+            for (int attempt = 0; group.size() < groupSize && attempt < groupSize * 4; attempt++) {
+                shuffle(letters);
+                group.add(decorate(new String(letters)));
+            }
+            corpus.add(List.copyOf(group));
+        }
+        return corpus;
+    }
+
+    private String decorate(String word) {
+        double style = random.nextDouble();
+        if (style < 0.1) {
+            return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+        }
+        if (style < 0.2 && word.length() > 5) {
+            int split = 2 + random.nextInt(word.length() - 4);
+            char punctuation = PUNCTUATION.charAt(random.nextInt(PUNCTUATION.length()));
+            return word.substring(0, split) + punctuation + " " + word.substring(split);
+        }
+        return word;
+    }
+
+    private void shuffle(char[] letters) {
+        for (int i = letters.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char letter = letters[i];
+            letters[i] = letters[j];
+            letters[j] = letter;
+        }
+    }
+
+    private int draw(double[] distribution) {
+        double value = random.nextDouble();
+        for (int i = 0; i < distribution.length; i++) {
+            if (value < distribution[i]) {
+                return i;
+            }
+        }
+        return distribution.length - 1;
+    }
+
+    private static double[] cumulative(double[] frequencies) {
+        double total = 0;
+        for (double frequency : frequencies) {
+            total += frequency;
+        }
+        double[] distribution = new double[frequencies.length];
+        double sum = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            sum += frequencies[i];
+            distribution[i] = sum / total;
+        }
+        return distribution;
+    }
+}
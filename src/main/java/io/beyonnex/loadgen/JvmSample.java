@@ -0,0 +1,32 @@
+package io.beyonnex.loadgen;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * A sample of the heap usage and the garbage collection totals of the running JVM.
+ *
+ * @param heapUsed      - the bytes of heap in use
+ * @param heapCommitted - the bytes of heap committed by the JVM
+ * @param gcCount       - the number of collections since the JVM started, over all collectors
+ * @param gcMillis      - the time spent in collections since the JVM started, over all collectors
+ */
+public record JvmSample(long heapUsed, long heapCommitted, long gcCount, long gcMillis) {
+
+    /**
+     * Takes a sample from the platform MXBeans.
+     *
+     * @return the sample
+     */
+    public static JvmSample take() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcMillis += Math.max(0, collector.getCollectionTime());
+        }
+        return new JvmSample(heap.getUsed(), heap.getCommitted(), gcCount, gcMillis);
+    }
+}
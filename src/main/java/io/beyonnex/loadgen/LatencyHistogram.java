@@ -0,0 +1,187 @@
+package io.beyonnex.loadgen;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * The LatencyHistogram records latencies in a log-linear layout in the style of HdrHistogram, keeping three
+ * significant digits over the whole trackable range at a fixed memory cost.
+ * <p>
+ * Values below 2048 get a bucket each. Above, each power of two is split into 1024 equally wide buckets, so a
+ * recorded value is off by less than 1/1024 of itself. Recording is a few shifts and an array increment.
+ * <p>
+ * The histogram is not thread-safe; each load worker records into its own histograms, which are merged for reporting.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 11;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int PERCENTILE_TICKS_PER_HALF_DISTANCE = 5;
+
+    private final long highestTrackableValue;
+    private final long[] counts;
+    private long totalCount;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+    private double sum;
+    private double sumOfSquares;
+
+    /**
+     * Creates an empty histogram. Larger values are recorded as the highest trackable value.
+     *
+     * @param highestTrackableValue - the highest value to be told apart, e.g. a minute in nanoseconds
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        this.highestTrackableValue = Math.max(highestTrackableValue, SUB_BUCKET_COUNT);
+        this.counts = new long[indexOf(this.highestTrackableValue) + 1];
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param value - the value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), highestTrackableValue);
+        counts[indexOf(clamped)]++;
+        totalCount++;
+        minValue = Math.min(minValue, clamped);
+        maxValue = Math.max(maxValue, clamped);
+        sum += clamped;
+        sumOfSquares += (double) clamped * clamped;
+    }
+
+    /**
+     * Adds all values recorded by another histogram with the same highest trackable value.
+     *
+     * @param other - the histogram to be added
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    public double getStdDeviation() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, sumOfSquares / totalCount - mean * mean));
+    }
+
+    /**
+     * Returns the value at or below which the given percentage of all recorded values lies. The value is the highest
+     * value of its bucket, but never above the maximum recorded value.
+     *
+     * @param percentile - the percentile between 0 and 100
+     * @return the value at the percentile, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), maxValue);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes the percentile distribution in the layout of HdrHistogram, with the number of percentile steps doubling
+     * for each halving of the distance to 100%.
+     *
+     * @param out   - the writer to write to
+     * @param scale - the divisor applied to all values, e.g. 1000 to write nanoseconds as microseconds
+     */
+    public void writePercentileDistribution(PrintWriter out, double scale) {
+        out.printf("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        if (totalCount > 0) {
+            double percentile = 0;
+            while (100 - percentile > 0.0001) {
+                writePercentile(out, percentile, scale);
+                int halfDistance = (int) (Math.log(100 / (100 - percentile)) / Math.log(2)) + 1;
+                percentile += 100 / (PERCENTILE_TICKS_PER_HALF_DISTANCE * Math.pow(2, halfDistance));
+            }
+            writePercentile(out, 100, scale);
+        }
+        out.printf("#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", getMean() / scale, getStdDeviation() / scale);
+        out.printf("#[Max     = %12.3f, Total count    = %12d]%n", getMaxValue() / scale, totalCount);
+    }
+
+    private void writePercentile(PrintWriter out, double percentile, double scale) {
+        long value = getValueAtPercentile(percentile);
+        long countAtValue = 0;
+        for (int i = 0; i < counts.length && lowestEquivalentValue(i) <= value; i++) {
+            countAtValue += counts[i];
+        }
+        String inverse = percentile < 100 ? String.format("%14.2f", 100 / (100 - percentile)) : "";
+        out.printf("%12.3f %14.12f %10d %s%n", value / scale, percentile / 100, countAtValue, inverse);
+    }
+
+    /**
+     * Values up to SUB_BUCKET_COUNT map onto themselves. Above, the value is shifted right until it fits into the
+     * upper half of a sub-bucket range, and each shift selects the next run of SUB_BUCKET_HALF_COUNT buckets.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket - SUB_BUCKET_HALF_COUNT;
+    }
+
+    private static long lowestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << shift;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        return lowestEquivalentValue(index) + (1L << shift) - 1;
+    }
+}
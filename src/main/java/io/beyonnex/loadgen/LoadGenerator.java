@@ -0,0 +1,342 @@
+package io.beyonnex.loadgen;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.replacements.ModeType;
+import io.beyonnex.service.statistics.GroupStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LoadGenerator drives an in-process AnagramService with a constant rate of requests for soak tests. It generates
+ * a synthetic corpus, loads it into the service and then sends a mix of areAnagrams and getAnagrams requests and
+ * mode toggles for the configured duration, picking words by a Zipf distribution.
+ * <p>
+ * Each worker sends its requests on a fixed schedule. The response time of a request is measured from the time it
+ * was scheduled for rather than the time it was sent, so a stall delaying the following requests shows up in their
+ * latencies as well. This corrects for coordinated omission; the service time measured from the actual send is
+ * reported next to it.
+ * <p>
+ * Latency percentiles and heap and GC statistics are written to the report file once per report interval, followed
+ * by the percentile distributions of the whole run after the warmup.
+ */
+public class LoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final double NANOS_PER_MICRO = 1_000;
+    private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+    private static final ModeType[] MODE_TYPES = ModeType.values();
+
+    private final LoadProfile profile;
+    private final AnagramService anagramService;
+    private List<String> words;
+    private int[] groupOfWord;
+    private List<List<String>> corpus;
+    private ZipfDistribution wordPopularity;
+
+    /**
+     * Creates a generator driving a new service, keeping its dictionary on the local heap.
+     *
+     * @param profile - the profile of the run
+     */
+    public LoadGenerator(LoadProfile profile) {
+        this(profile, new AnagramService());
+    }
+
+    /**
+     * Creates a generator driving the given service.
+     *
+     * @param profile        - the profile of the run
+     * @param anagramService - the service under test
+     */
+    public LoadGenerator(LoadProfile profile, AnagramService anagramService) {
+        this.profile = profile;
+        this.anagramService = anagramService;
+    }
+
+    /**
+     * Runs a load test with the profile given as key=value arguments, see LoadProfile.parse.
+     *
+     * @param args - the profile of the run
+     * @throws IOException          - if the report cannot be written
+     * @throws InterruptedException - if the run is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadResult result = new LoadGenerator(LoadProfile.parse(args)).run();
+        LOGGER.info("Sent {} requests at {} requests/s, p99 response time {} us, report written to {}",
+                result.responseTimes().getTotalCount(), String.format("%.1f", result.requestsPerSecond()),
+                String.format("%.1f", result.responseTimes().getValueAtPercentile(99) / NANOS_PER_MICRO),
+                result.profile().reportFile());
+    }
+
+    /**
+     * Generates and loads the corpus, runs the load and writes the report.
+     *
+     * @return the result of the run after the warmup
+     * @throws IOException          - if the report cannot be written
+     * @throws InterruptedException - if the run is interrupted
+     */
+    public LoadResult run() throws IOException, InterruptedException {
+        long loadMillis = loadCorpus();
+
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(profile.reportFile()))) {
+            report.printf("# Anagram load test started %s%n# %s%n", Instant.now(), profile);
+            report.printf("# Corpus: %d groups, %d strings, loaded in %d ms%n", corpus.size(), words.size(), loadMillis);
+            report.printf("# Latencies in microseconds. Response times are measured from the scheduled send time and "
+                    + "correct for coordinated omission, service times from the actual send time.%n");
+            report.println("elapsed_s,phase,requests,errors,rate,resp_p50,resp_p90,resp_p99,resp_p999,resp_max,"
+                    + "svc_p50,svc_p99,svc_max,heap_used_mb,heap_committed_mb,gc_count,gc_ms");
+
+            LoadResult result = runWorkers(report);
+
+            GroupStatistics statistics = anagramService.getStatistics(0);
+            report.printf("%n# Summary after warmup: %d requests, %.1f requests/s, %d errors, %d requests missed their "
+                            + "schedule at the end of the run%n", result.responseTimes().getTotalCount(),
+                    result.requestsPerSecond(), result.errors(), result.missedRequests());
+            report.printf("# Dictionary: %d groups, %d strings%n", statistics.groups(), statistics.originals());
+            report.printf("# Heap: %d MB peak used, GC: %d collections, %d ms%n",
+                    result.peakHeapUsed() / BYTES_PER_MEGABYTE, result.gcCount(), result.gcMillis());
+            report.printf("%n# Response time distribution (us)%n");
+            result.responseTimes().writePercentileDistribution(report, NANOS_PER_MICRO);
+            report.printf("%n# Service time distribution (us)%n");
+            result.serviceTimes().writePercentileDistribution(report, NANOS_PER_MICRO);
+            return result;
+        }
+    }
+
+    private long loadCorpus() {
+        long started = System.nanoTime();
+        corpus = new CorpusGenerator(new SplittableRandom(profile.seed())).generate(profile.corpusGroups());
+        words = new ArrayList<>();
+        List<Integer> groups = new ArrayList<>();
+        for (int group = 0; group < corpus.size(); group++) {
+            for (String word : corpus.get(group)) {
+                anagramService.addWord(word);
+                words.add(word);
+                groups.add(group);
+            }
+        }
+        groupOfWord = groups.stream().mapToInt(Integer::intValue).toArray();
+        wordPopularity = new ZipfDistribution(words.size(), profile.zipfExponent());
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        LOGGER.info("Loaded {} strings in {} groups in {} ms", words.size(), corpus.size(), loadMillis);
+        return loadMillis;
+    }
+
+    private LoadResult runWorkers(PrintWriter report) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(profile.threads()) / profile.requestsPerSecond();
+        long startNanos = System.nanoTime();
+        long warmupEndNanos = startNanos + profile.warmup().toNanos();
+        long endNanos = startNanos + profile.duration().toNanos();
+
+        SplittableRandom random = new SplittableRandom(profile.seed());
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < profile.threads(); i++) {
+            Worker worker = new Worker(random.split(), startNanos + i * intervalNanos / profile.threads(),
+                    intervalNanos, endNanos);
+            workers.add(worker);
+            threads.add(Thread.ofPlatform().name("load-worker-" + i).start(worker));
+        }
+
+        LatencyHistogram responseTimes = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        LatencyHistogram serviceTimes = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        LatencyHistogram intervalResponseTimes = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        LatencyHistogram intervalServiceTimes = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        JvmSample first = JvmSample.take();
+        JvmSample previous = first;
+        long peakHeapUsed = first.heapUsed();
+        long errors = 0;
+        long measuredNanos = 0;
+        long intervalStartNanos = startNanos;
+
+        boolean last = false;
+        while (!last) {
+            long intervalEndNanos = Math.min(intervalStartNanos + profile.reportInterval().toNanos(), endNanos);
+            if (intervalStartNanos < warmupEndNanos) {
+                // the warmup ends an interval of its own, so none of it is counted as measured
+                intervalEndNanos = Math.min(intervalEndNanos, warmupEndNanos);
+            }
+            sleepUntil(intervalEndNanos);
+            last = intervalEndNanos >= endNanos;
+            if (last) {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+
+            long intervalErrors = 0;
+            for (Worker worker : workers) {
+                intervalErrors += worker.drainInto(intervalResponseTimes, intervalServiceTimes);
+            }
+            JvmSample sample = JvmSample.take();
+            peakHeapUsed = Math.max(peakHeapUsed, sample.heapUsed());
+            boolean warmup = intervalEndNanos <= warmupEndNanos;
+            if (!warmup) {
+                responseTimes.add(intervalResponseTimes);
+                serviceTimes.add(intervalServiceTimes);
+                errors += intervalErrors;
+                measuredNanos += intervalEndNanos - intervalStartNanos;
+            }
+            writeInterval(report, (intervalEndNanos - startNanos) / 1e9, warmup, intervalEndNanos - intervalStartNanos,
+                    intervalErrors, intervalResponseTimes, intervalServiceTimes, sample, previous);
+
+            intervalResponseTimes.reset();
+            intervalServiceTimes.reset();
+            previous = sample;
+            intervalStartNanos = intervalEndNanos;
+        }
+
+        long missedRequests = workers.stream().mapToLong(worker -> worker.missedRequests).sum();
+        JvmSample end = JvmSample.take();
+        return new LoadResult(profile, responseTimes, serviceTimes, responseTimes.getTotalCount() / (measuredNanos / 1e9),
+                errors, missedRequests, peakHeapUsed, end.gcCount() - first.gcCount(), end.gcMillis() - first.gcMillis());
+    }
+
+    private void writeInterval(PrintWriter report, double elapsedSeconds, boolean warmup, long intervalNanos,
+                               long errors, LatencyHistogram responseTimes, LatencyHistogram serviceTimes,
+                               JvmSample sample, JvmSample previous) {
+        double rate = responseTimes.getTotalCount() / (intervalNanos / 1e9);
+        String line = String.format("%.1f,%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d,%d,%d,%d",
+                elapsedSeconds, warmup ? "warmup" : "measure", responseTimes.getTotalCount(), errors, rate,
+                micros(responseTimes.getValueAtPercentile(50)), micros(responseTimes.getValueAtPercentile(90)),
+                micros(responseTimes.getValueAtPercentile(99)), micros(responseTimes.getValueAtPercentile(99.9)),
+                micros(responseTimes.getMaxValue()), micros(serviceTimes.getValueAtPercentile(50)),
+                micros(serviceTimes.getValueAtPercentile(99)), micros(serviceTimes.getMaxValue()),
+                sample.heapUsed() / BYTES_PER_MEGABYTE, sample.heapCommitted() / BYTES_PER_MEGABYTE,
+                sample.gcCount() - previous.gcCount(), sample.gcMillis() - previous.gcMillis());
+        report.println(line);
+        report.flush();
+        LOGGER.info(line);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * The result of a load test run after the warmup.
+     *
+     * @param profile           - the profile of the run
+     * @param responseTimes     - the latencies measured from the scheduled send times
+     * @param serviceTimes      - the latencies measured from the actual send times
+     * @param requestsPerSecond - the achieved request rate
+     * @param errors            - the number of requests that failed
+     * @param missedRequests    - the number of requests not sent when the run ended, because the workers fell behind
+     * @param peakHeapUsed      - the highest heap usage sampled
+     * @param gcCount           - the number of collections during the run
+     * @param gcMillis          - the time spent in collections during the run
+     */
+    public record LoadResult(LoadProfile profile, LatencyHistogram responseTimes, LatencyHistogram serviceTimes,
+                             double requestsPerSecond, long errors, long missedRequests, long peakHeapUsed,
+                             long gcCount, long gcMillis) {
+    }
+
+    /**
+     * A worker sending requests on its own schedule, recording into interval histograms drained by the reporter.
+     */
+    private final class Worker implements Runnable {
+
+        private final SplittableRandom random;
+        private final long firstSendNanos;
+        private final long intervalNanos;
+        private final long endNanos;
+        private final LatencyHistogram responseTimes = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        private final LatencyHistogram serviceTimes = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        private long errors;
+        private long missedRequests;
+
+        private Worker(SplittableRandom random, long firstSendNanos, long intervalNanos, long endNanos) {
+            this.random = random;
+            this.firstSendNanos = firstSendNanos;
+            this.intervalNanos = intervalNanos;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public void run() {
+            long scheduledNanos = firstSendNanos;
+            while (scheduledNanos < endNanos) {
+                sleepUntil(scheduledNanos);
+                long sentNanos = System.nanoTime();
+                if (sentNanos >= endNanos) {
+                    missedRequests = (endNanos - scheduledNanos + intervalNanos - 1) / intervalNanos;
+                    return;
+                }
+                boolean failed = false;
+                try {
+                    sendRequest();
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+                long doneNanos = System.nanoTime();
+                synchronized (this) {
+                    responseTimes.record(doneNanos - scheduledNanos);
+                    serviceTimes.record(doneNanos - sentNanos);
+                    if (failed) {
+                        errors++;
+                    }
+                }
+                scheduledNanos += intervalNanos;
+            }
+        }
+
+        private void sendRequest() {
+            double request = random.nextDouble();
+            if (request < profile.toggleRatio()) {
+                ModeType modeType = MODE_TYPES[random.nextInt(MODE_TYPES.length)];
+                if (anagramService.getActiveModes().contains(modeType)) {
+                    anagramService.deactivateMode(modeType);
+                } else {
+                    anagramService.activateMode(modeType);
+                }
+                return;
+            }
+
+            int word = wordPopularity.sample(random);
+            if (request < profile.toggleRatio() + (1 - profile.toggleRatio()) * profile.checkRatio()) {
+                anagramService.areAnagrams(words.get(word), partnerOf(word));
+            } else {
+                anagramService.getAnagrams(words.get(word));
+            }
+        }
+
+        /**
+         * Half of the checks compare a word with an anagram from its own group, the others with another popular word.
+         */
+        private String partnerOf(int word) {
+            List<String> group = corpus.get(groupOfWord[word]);
+            if (random.nextBoolean()) {
+                return group.get(random.nextInt(group.size()));
+            }
+            return words.get(wordPopularity.sample(random));
+        }
+
+        private synchronized long drainInto(LatencyHistogram responseTimes, LatencyHistogram serviceTimes) {
+            responseTimes.add(this.responseTimes);
+            serviceTimes.add(this.serviceTimes);
+            this.responseTimes.reset();
+            this.serviceTimes.reset();
+            long drainedErrors = errors;
+            errors = 0;
+            return drainedErrors;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.beyonnex.loadgen;
+
+import io.beyonnex.service.error.FindrException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static io.beyonnex.service.error.FindrException.INVALID_LOAD_PROFILE_ERROR;
+
+/**
+ * The profile of a load test run.
+ *
+ * @param threads           - the number of workers sending requests
+ * @param requestsPerSecond - the constant request rate over all workers
+ * @param duration          - the length of the run, including the warmup
+ * @param warmup            - the time at the start of the run not counted in the summary
+ * @param reportInterval    - the time between two interval lines in the report
+ * @param checkRatio        - the share of areAnagrams requests, the rest being getAnagrams requests
+ * @param toggleRatio       - the share of requests toggling a replacement mode instead
+ * @param zipfExponent      - the skew of the word popularity, 0 for uniformly popular words
+ * @param corpusGroups      - the number of anagram groups in the synthetic corpus
+ * @param seed              - the seed of the corpus and the request mix
+ * @param reportFile        - the file the report is written to
+ */
+public record LoadProfile(int threads, int requestsPerSecond, Duration duration, Duration warmup,
+                          Duration reportInterval, double checkRatio, double toggleRatio, double zipfExponent,
+                          int corpusGroups, long seed, Path reportFile) {
+
+    /**
+     * Creates a profile from command line arguments of the form key=value, e.g. {@code rate=20000 duration=3600}.
+     * Durations are given in seconds. Keys not given keep their default.
+     *
+     * @param args - the arguments
+     * @return the profile
+     * @throws FindrException - if an argument is unknown or its value is invalid
+     */
+    public static LoadProfile parse(String... args) {
+        int threads = 4;
+        int requestsPerSecond = 10_000;
+        Duration duration = Duration.ofMinutes(5);
+        Duration warmup = Duration.ofSeconds(30);
+        Duration reportInterval = Duration.ofSeconds(10);
+        double checkRatio = 0.5;
+        double toggleRatio = 0.0001;
+        double zipfExponent = 1.0;
+        int corpusGroups = 50_000;
+        long seed = 42;
+        Path reportFile = Path.of("load-report.txt");
+
+        for (String arg : args) {
+            String[] keyAndValue = arg.split("=", 2);
+            if (keyAndValue.length != 2) {
+                throw new FindrException(String.format(INVALID_LOAD_PROFILE_ERROR, arg));
+            }
+            String value = keyAndValue[1];
+            try {
+                switch (keyAndValue[0]) {
+                    case "threads" -> threads = Integer.parseInt(value);
+                    case "rate" -> requestsPerSecond = Integer.parseInt(value);
+                    case "duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                    case "warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                    case "interval" -> reportInterval = Duration.ofSeconds(Long.parseLong(value));
+                    case "checkRatio" -> checkRatio = Double.parseDouble(value);
+                    case "toggleRatio" -> toggleRatio = Double.parseDouble(value);
+                    case "zipf" -> zipfExponent = Double.parseDouble(value);
+                    case "groups" -> corpusGroups = Integer.parseInt(value);
+                    case "seed" -> seed = Long.parseLong(value);
+                    case "report" -> reportFile = Path.of(value);
+                    default -> throw new FindrException(String.format(INVALID_LOAD_PROFILE_ERROR, arg));
+                }
+            } catch (NumberFormatException e) {
+                throw new FindrException(String.format(INVALID_LOAD_PROFILE_ERROR, arg));
+            }
+        }
+
+        LoadProfile profile = new LoadProfile(threads, requestsPerSecond, duration, warmup, reportInterval,
+                checkRatio, toggleRatio, zipfExponent, corpusGroups, seed, reportFile);
+        profile.validate();
+        return profile;
+    }
+
+    private void validate() {
+        if (threads < 1 || requestsPerSecond < 1 || corpusGroups < 1) {
+            throw new FindrException(String.format(INVALID_LOAD_PROFILE_ERROR, "threads, rate and groups > 0"));
+        }
+        if (reportInterval.isZero() || reportInterval.isNegative() || duration.compareTo(warmup) <= 0) {
+            throw new FindrException(String.format(INVALID_LOAD_PROFILE_ERROR, "interval > 0, duration > warmup"));
+        }
+        if (checkRatio < 0 || checkRatio > 1 || toggleRatio < 0 || toggleRatio > 1 || zipfExponent < 0) {
+            throw new FindrException(String.format(INVALID_LOAD_PROFILE_ERROR, "ratios in [0, 1], zipf >= 0"));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.beyonnex.loadgen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The ZipfDistribution draws ranks following Zipf's law, where the item of rank k is requested with a probability
+ * proportional to 1 / k^exponent. Natural language word frequencies follow it with an exponent close to 1, so a few
+ * words make up most of the traffic while a long tail is requested only now and then.
+ * <p>
+ * The cumulative probabilities are computed once, and each sample is a binary search over them.
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulativeProbabilities;
+
+    /**
+     * Creates the distribution over the given number of items.
+     *
+     * @param items    - the number of items, drawn as the ranks 0 to items - 1
+     * @param exponent - the skew, 0 for a uniform distribution
+     */
+    public ZipfDistribution(int items, double exponent) {
+        cumulativeProbabilities = new double[items];
+        double total = 0;
+        for (int rank = 0; rank < items; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulativeProbabilities[rank] = total;
+        }
+        for (int rank = 0; rank < items; rank++) {
+            cumulativeProbabilities[rank] /= total;
+        }
+    }
+
+    /**
+     * Draws a rank, 0 being the most frequent one.
+     *
+     * @param random - the source of randomness
+     * @return the drawn rank
+     */
+    public int sample(RandomGenerator random) {
+        int position = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        int rank = position >= 0 ? position : -position - 1;
+        return Math.min(rank, cumulativeProbabilities.length - 1);
+    }
+}
@@ -1,9 +1,11 @@
 package io.beyonnex.service;
 
 import io.beyonnex.Main;
+import io.beyonnex.service.dictionary.DictionaryRekeyer;
 import io.beyonnex.service.error.FindrException;
 import io.beyonnex.service.replacements.Mode;
 import io.beyonnex.service.replacements.ModeType;
+import io.beyonnex.service.statistics.GroupStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,18 +23,25 @@ import static io.beyonnex.service.Message.ENTER_STRING;
 import static io.beyonnex.service.Message.ENTER_TEXTS;
 import static io.beyonnex.service.Message.ERROR;
 import static io.beyonnex.service.Message.EXITING;
+import static io.beyonnex.service.Message.GROUP_SIZES;
+import static io.beyonnex.service.Message.GROUP_STATISTICS;
 import static io.beyonnex.service.Message.HEADER_LINE;
 import static io.beyonnex.service.Message.INSTRUCTIONS;
 import static io.beyonnex.service.Message.INVALID_OPTION;
 import static io.beyonnex.service.Message.INVALID_REPLACEMENT_MODE_ADD;
 import static io.beyonnex.service.Message.INVALID_REPLACEMENT_MODE_REMOVE;
 import static io.beyonnex.service.Message.KNOWN_ANAGRAMS;
+import static io.beyonnex.service.Message.LARGEST_GROUPS;
 import static io.beyonnex.service.Message.MODE_ACTIVATED;
 import static io.beyonnex.service.Message.MODE_DEACTIVATED;
 import static io.beyonnex.service.Message.MODE_REPLACEMENTS;
 import static io.beyonnex.service.Message.NOT_ANAGRAMS;
 import static io.beyonnex.service.Message.NO_ANAGRAMS;
+import static io.beyonnex.service.Message.REBUILD_FINISHED;
+import static io.beyonnex.service.Message.REBUILD_PROGRESS;
+import static io.beyonnex.service.Message.REBUILD_STARTED;
 import static io.beyonnex.service.Message.REMOVE_REPLACEMENT_MODE;
+import static io.beyonnex.service.Message.SIGNATURE_LENGTHS;
 import static io.beyonnex.service.Message.WELCOME_TO_FINDER;
 
 /**
@@ -46,15 +55,37 @@ public class AnagramCli {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
+    /**
+     * Number of largest anagram groups listed by the statistics option.
+     */
+    private static final int LARGEST_GROUPS_SHOWN = 10;
+
+    private final AnagramService anagramService;
+
+    /**
+     * Creates a CLI working on a service with a local, in-memory anagram dictionary.
+     */
+    public AnagramCli() {
+        this(new AnagramService());
+    }
+
+    /**
+     * Creates a CLI working on the given service.
+     *
+     * @param anagramService - the service answering the user's requests
+     */
+    public AnagramCli(AnagramService anagramService) {
+        this.anagramService = anagramService;
+    }
+
     /**
      * runAnagramFinder is the main interaction method of the AnagramCli.
      * It manages user input and output to perform various anagram-related operations.
      * Operations include: checking if two strings are anagrams, fetching known anagrams,
-     * adding and removing replacement modes, and exiting the application.
+     * adding and removing replacement modes, rebuilding the dictionary, showing statistics, and exiting the application.
      * Errors and exceptions are also caught and logged in this method.
      */
     public void runAnagramFinder() {
-        AnagramService anagramService = new AnagramService();
         Scanner scanner = new Scanner(System.in);
 
         LOGGER.info(HEADER_LINE.get());
@@ -122,6 +153,22 @@ public class AnagramCli {
                         break;
 
                     case "5":
+                        LOGGER.info(REBUILD_STARTED.format(anagramService.getActiveModes()));
+                        DictionaryRekeyer.Result result = anagramService.rebuildSignatures(progress ->
+                                LOGGER.info(REBUILD_PROGRESS.format(progress.processed(), progress.total(),
+                                        progress.originalsPerSecond())));
+                        LOGGER.info(REBUILD_FINISHED.format(result.originals(), result.groups(), result.elapsedMillis()));
+                        break;
+
+                    case "6":
+                        GroupStatistics statistics = anagramService.getStatistics(LARGEST_GROUPS_SHOWN);
+                        LOGGER.info(GROUP_STATISTICS.format(statistics.groups(), statistics.originals()));
+                        LOGGER.info(LARGEST_GROUPS.format(statistics.largestGroups()));
+                        LOGGER.info(SIGNATURE_LENGTHS.format(statistics.signatureLengths()));
+                        LOGGER.info(GROUP_SIZES.format(statistics.groupSizes()));
+                        break;
+
+                    case "7":
                         LOGGER.info(EXITING.get());
                         scanner.close();
                         return;
@@ -1,27 +1,171 @@
 package io.beyonnex.service;
 
+import io.beyonnex.service.dictionary.AnagramDictionary;
+import io.beyonnex.service.dictionary.BloomFilteredAnagramDictionary;
+import io.beyonnex.service.dictionary.DictionaryRekeyer;
+import io.beyonnex.service.dictionary.DictionarySnapshot;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.dictionary.LazyAnagramDictionary;
 import io.beyonnex.service.error.FindrException;
+import io.beyonnex.service.export.AnagramExporter;
+import io.beyonnex.service.export.ExportFormat;
 import io.beyonnex.service.replacements.Mode;
 import io.beyonnex.service.replacements.ModeType;
+import io.beyonnex.service.statistics.GroupStatistics;
+import io.beyonnex.service.statistics.StatisticsAnagramDictionary;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static io.beyonnex.service.error.FindrException.INVALID_INPUT_ERROR;
+import static io.beyonnex.service.error.FindrException.MISSING_INDEX_ERROR;
 
 /**
  * This class is responsible for performing anagram search operations. It allows you to add or remove anagram match
  * replacement modes, check if two strings are anagrams and look up anagrams for any given string.
+ * <p>
+ * The anagrams are kept in an AnagramDictionary, which is held on the local heap unless another one is provided,
+ * e.g. a ClusterAnagramDictionary spreading the groups over several processes.
+ * <p>
+ * The dictionary can be rebuilt under the currently active modes while the service keeps answering from the old one;
+ * the rebuilt dictionary replaces the old one atomically once it is complete.
+ * <p>
+ * Statistics about the anagram groups are kept up to date on every insert, see getStatistics.
  */
 public class AnagramService {
 
+    /**
+     * The name of the dictionary index resource built into the application by the fast-start build profile.
+     */
+    public static final String INDEX_RESOURCE = "/anagram-index.bin";
+
     private static final String ALPHABET_ONLY_REGEX = "[^a-z]";
-    private final Map<String, Set<String>> anagramDictionary = new HashMap<>();
-    private final Set<ModeType> activeModes = new HashSet<>();
+    private volatile StatisticsAnagramDictionary anagramDictionary;
+    /**
+     * The active modes, replaced as a whole on every toggle. An EnumSet is iterated in declaration order, so the modes
+     * are always applied in the same order, whatever order they were activated in; LATIN and MODERN do not commute.
+     */
+    private final AtomicReference<EnumSet<ModeType>> activeModes =
+            new AtomicReference<>(EnumSet.noneOf(ModeType.class));
+    /**
+     * Write-locked when a rebuild starts and when it swaps the rebuilt dictionary in. Inserts only validate an
+     * optimistic read against it, and take the read lock only if a rebuild is running or has started meanwhile.
+     */
+    private final StampedLock dictionarySwapLock = new StampedLock();
+    private final Object rebuildMonitor = new Object();
+    private volatile Queue<String> originalsAddedDuringRebuild;
+
+    /**
+     * Creates a service keeping its anagram dictionary on the local heap.
+     */
+    public AnagramService() {
+        this(new InMemoryAnagramDictionary());
+    }
+
+    /**
+     * Creates a service storing its anagrams in the given dictionary.
+     *
+     * @param anagramDictionary - the dictionary holding the anagram groups
+     */
+    public AnagramService(AnagramDictionary anagramDictionary) {
+        this.anagramDictionary = new StatisticsAnagramDictionary(anagramDictionary);
+    }
+
+    /**
+     * Creates a service from a snapshot previously written by saveSnapshot.
+     * A Bloom filter contained in the snapshot is restored in front of the dictionary.
+     *
+     * @param snapshot - the snapshot file
+     * @return a service holding the restored dictionary, with the modes active when the snapshot was written
+     * @throws IOException - if the snapshot cannot be read
+     */
+    public static AnagramService fromSnapshot(Path snapshot) throws IOException {
+        DictionarySnapshot.Contents contents = DictionarySnapshot.readContents(snapshot);
+        AnagramService anagramService = new AnagramService(contents.dictionary());
+        contents.modes().forEach(anagramService::activateMode);
+        return anagramService;
+    }
+
+    /**
+     * Creates a service over a prebuilt dictionary index packaged as a classpath resource, see DictionaryIndexBuilder.
+     * The index is only read when the service is first used, so creating the service costs next to nothing.
+     *
+     * @param resource - the absolute name of the resource, e.g. INDEX_RESOURCE
+     * @return a service holding the indexed anagram groups, with no active modes
+     * @throws FindrException - if the resource is not on the classpath
+     */
+    public static AnagramService fromIndexResource(String resource) {
+        if (AnagramService.class.getResource(resource) == null) {
+            throw new FindrException(String.format(MISSING_INDEX_ERROR, resource));
+        }
+        return new AnagramService(new LazyAnagramDictionary(() -> {
+            try (InputStream in = AnagramService.class.getResourceAsStream(resource)) {
+                return DictionarySnapshot.read(in, resource);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    /**
+     * Writes the anagram dictionary, including its Bloom filter if there is one, and the active modes its signatures
+     * were computed under to a snapshot file.
+     *
+     * @param snapshot - the snapshot file, replaced once the new snapshot is complete
+     * @throws IOException - if the snapshot cannot be written
+     */
+    public void saveSnapshot(Path snapshot) throws IOException {
+        DictionarySnapshot.write(anagramDictionary.getDelegate(), getActiveModes(), snapshot);
+    }
+
+    /**
+     * Streams all anagram groups to the given channel. The groups are taken from a snapshot of the dictionary,
+     * so inserts can continue during the export without showing up in it. A cluster cannot take a snapshot; its
+     * groups are exported as they are, so inserts made during the export may show up in it.
+     *
+     * @param channel - the channel to write to, left open
+     * @param format  - the format of the exported groups
+     * @return the number of groups and bytes written
+     * @throws IOException - if the channel cannot be written
+     */
+    public AnagramExporter.ExportResult exportGroups(WritableByteChannel channel, ExportFormat format)
+            throws IOException {
+        return new AnagramExporter(format).export(anagramDictionary, channel);
+    }
+
+    /**
+     * Exports all anagram groups into several files written in parallel, each holding the groups of one hash shard.
+     * All files are written from the same snapshot of the dictionary, if it can take one, in a single walk over it.
+     *
+     * @param directory - the directory to write the files to
+     * @param baseName  - the common name of the files
+     * @param format    - the format of the exported groups
+     * @param shards    - the number of files
+     * @return the number of groups and bytes written over all files
+     * @throws IOException - if one of the files cannot be written
+     */
+    public AnagramExporter.ExportResult exportGroups(Path directory, String baseName, ExportFormat format, int shards)
+            throws IOException {
+        return new AnagramExporter(format).exportSharded(anagramDictionary, directory, baseName, shards);
+    }
 
     /**
      * Activates a given anagram match replacement mode.
@@ -29,7 +173,11 @@ public class AnagramService {
      * @param modeType - type of mode to be activated
      */
     public void activateMode(ModeType modeType) {
-        activeModes.add(modeType);
+        activeModes.updateAndGet(modes -> {
+            EnumSet<ModeType> updated = EnumSet.copyOf(modes);
+            updated.add(modeType);
+            return updated;
+        });
     }
 
     /**
@@ -38,16 +186,20 @@ public class AnagramService {
      * @param modeType - type of mode to be deactivated
      */
     public void deactivateMode(ModeType modeType) {
-        activeModes.remove(modeType);
+        activeModes.updateAndGet(modes -> {
+            EnumSet<ModeType> updated = EnumSet.copyOf(modes);
+            updated.remove(modeType);
+            return updated;
+        });
     }
 
     /**
-     * Returns a set of currently active anagram match replacement modes.
+     * Returns a set of currently active anagram match replacement modes, iterated in the order they are applied in.
      *
      * @return Set of active modes
      */
     public Set<ModeType> getActiveModes() {
-        return new HashSet<>(activeModes);
+        return EnumSet.copyOf(activeModes.get());
     }
 
     /**
@@ -77,6 +229,20 @@ public class AnagramService {
         return normalizedA.equals(normalizedB);
     }
 
+    /**
+     * Adds a string to the anagram dictionary considering the currently active modes, without comparing it to
+     * another one, e.g. to build a dictionary from a word list.
+     *
+     * @param word - the string to be added
+     * @throws FindrException - if the input is null
+     */
+    public void addWord(String word) {
+        if (word == null) {
+            throw new FindrException(INVALID_INPUT_ERROR);
+        }
+        addStringToAnagramMap(normalizeString(applyModes(word)), word);
+    }
+
     /**
      * Gets a collection of anagrams from a precomputed anagram dictionary for a given string.
      *
@@ -89,15 +255,127 @@ public class AnagramService {
     public Set<String> getAnagrams(String word) {
         String transformedWord = applyModes(word);
         String normalizedWord = normalizeString(transformedWord);
-        return anagramDictionary.getOrDefault(normalizedWord, new HashSet<>())
+        return anagramDictionary.get(normalizedWord)
                 .stream()
                 .filter(anagram -> !anagram.equals(word))
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Gets the anagrams of several strings at once. All signatures are looked up in a single bulk request,
+     * which saves round trips when the dictionary is not held locally.
+     *
+     * @param words - strings to be checked
+     * @return Map<String, Set<String>> - Set of anagrams for each string, empty if no matches were found
+     */
+    public Map<String, Set<String>> getAnagrams(Collection<String> words) {
+        Map<String, String> signatures = new HashMap<>();
+        for (String word : words) {
+            signatures.put(word, normalizeString(applyModes(word)));
+        }
+
+        Map<String, Set<String>> groups = anagramDictionary.getAll(new HashSet<>(signatures.values()));
+        Map<String, Set<String>> anagrams = new HashMap<>();
+        signatures.forEach((word, signature) -> anagrams.put(word, groups.getOrDefault(signature, Set.of())
+                .stream()
+                .filter(anagram -> !anagram.equals(word))
+                .collect(Collectors.toSet())));
+        return anagrams;
+    }
+
+    /**
+     * Returns statistics about the anagram groups: the number of groups and strings, the largest groups, and the
+     * distributions of signature lengths and group sizes. The statistics are maintained on every insert, so this
+     * does not walk the dictionary. The nodes of a cluster keep the statistics of their own groups, which are
+     * combined here.
+     *
+     * @param largestGroups - the number of largest groups to be listed, at most AnagramStatistics.DEFAULT_TRACKED_GROUPS
+     * @return the statistics at the time of the call
+     */
+    public GroupStatistics getStatistics(int largestGroups) {
+        return anagramDictionary.getStatistics(largestGroups);
+    }
+
+    /**
+     * Returns the lookup counters of the Bloom filter in front of the dictionary, if there is one. They show how many
+     * lookups of unknown words were answered without touching the dictionary.
+     *
+     * @return Optional<FilterStatistics> - the counters at the time of the call, or empty if there is no filter
+     */
+    public Optional<BloomFilteredAnagramDictionary.FilterStatistics> getFilterStatistics() {
+        return AnagramDictionary.find(anagramDictionary, BloomFilteredAnagramDictionary.class)
+                .map(BloomFilteredAnagramDictionary::getFilterStatistics);
+    }
+
+    /**
+     * Rebuilds the anagram dictionary under the currently active modes into an empty copy of the current dictionary,
+     * so decorators like a Bloom filter are kept.
+     *
+     * @param progressListener - receives the progress of the rebuild
+     * @return the figures of the finished rebuild
+     * @throws FindrException - if the dictionary cannot create an empty copy of itself, e.g. a cluster
+     * @see #rebuildSignatures(AnagramDictionary, Consumer)
+     */
+    public DictionaryRekeyer.Result rebuildSignatures(Consumer<DictionaryRekeyer.Progress> progressListener) {
+        return rebuildSignatures(anagramDictionary.getDelegate().newEmpty(), progressListener);
+    }
+
+    /**
+     * Re-derives the signature of every stored original string under the currently active modes and swaps the
+     * rebuilt dictionary in. This is needed after the transformation rules of a mode have changed, as all stored
+     * signatures are stale then.
+     * <p>
+     * The new dictionary is built in parallel off to the side, while the current one keeps serving lookups and
+     * inserts. Strings inserted during the rebuild are re-keyed into the new dictionary right before the swap.
+     * Only one rebuild runs at a time. Afterwards, the replaced dictionary is discarded, or the new one if the
+     * rebuild failed.
+     *
+     * @param target           - the empty dictionary to be filled and used from then on; must accept concurrent inserts
+     * @param progressListener - receives the progress of the rebuild
+     * @return the figures of the finished rebuild
+     */
+    public DictionaryRekeyer.Result rebuildSignatures(AnagramDictionary target,
+                                                      Consumer<DictionaryRekeyer.Progress> progressListener) {
+        synchronized (rebuildMonitor) {
+            Set<ModeType> modes = getActiveModes();
+            Function<String, String> signatureFunction = original -> normalizeString(applyModes(original, modes));
+
+            StatisticsAnagramDictionary rebuilt = new StatisticsAnagramDictionary(target);
+            AnagramDictionary replaced = null;
+            long stamp = dictionarySwapLock.writeLock();
+            originalsAddedDuringRebuild = new ConcurrentLinkedQueue<>();
+            dictionarySwapLock.unlockWrite(stamp);
+            DictionaryRekeyer.Result result;
+            try {
+                result = new DictionaryRekeyer().rekey(anagramDictionary, rebuilt, signatureFunction, progressListener);
+
+                stamp = dictionarySwapLock.writeLock();
+                try {
+                    for (String original : originalsAddedDuringRebuild) {
+                        rebuilt.add(signatureFunction.apply(original), original);
+                    }
+                    replaced = anagramDictionary;
+                    anagramDictionary = rebuilt;
+                } finally {
+                    originalsAddedDuringRebuild = null;
+                    dictionarySwapLock.unlockWrite(stamp);
+                }
+            } finally {
+                if (replaced == null) {
+                    originalsAddedDuringRebuild = null;
+                    rebuilt.discard();
+                } else {
+                    replaced.discard();
+                }
+            }
+            return result;
+        }
+    }
+
     /**
      * Method to apply currently active transformation modes to the input string.
-     * It sequentially applies the transformation associated with each active mode.
+     * It sequentially applies the transformation associated with each active mode, in the declaration order of the
+     * modes.
      *
      * @param input - the string to be transformed
      * @return the transformed string
@@ -106,7 +384,11 @@ public class AnagramService {
      * or enable users to decide the ordering in which multiple transformations are applied.
      */
     private String applyModes(String input) {
-        for (ModeType modeType : activeModes) {
+        return applyModes(input, activeModes.get());
+    }
+
+    private String applyModes(String input, Set<ModeType> modes) {
+        for (ModeType modeType : modes) {
             Mode mode = modeType.getInstance();
             input = mode.transform(input);
         }
@@ -141,10 +423,29 @@ public class AnagramService {
      * <p>
      * To extend, one could categorize anagrams not only based on the sorted character sequence, but also on other
      * factors like length of the string, frequency of certain characters etc.
-     *
+     * <p>
+     * While a rebuild is running, the original string is also remembered to be re-keyed into the rebuilt dictionary.
+     * Otherwise, it is added without locking; if a rebuild started or swapped its dictionary in meanwhile, it is added
+     * again under the read lock, which leaves the group unchanged if the first add already reached it.
      */
     // @formatter:on
     private void addStringToAnagramMap(String sorted, String original) {
-        anagramDictionary.computeIfAbsent(sorted, k -> new HashSet<>()).add(original);
+        long stamp = dictionarySwapLock.tryOptimisticRead();
+        if (stamp != 0 && originalsAddedDuringRebuild == null) {
+            anagramDictionary.add(sorted, original);
+            if (dictionarySwapLock.validate(stamp)) {
+                return;
+            }
+        }
+        stamp = dictionarySwapLock.readLock();
+        try {
+            anagramDictionary.add(sorted, original);
+            Queue<String> pendingOriginals = originalsAddedDuringRebuild;
+            if (pendingOriginals != null) {
+                pendingOriginals.add(original);
+            }
+        } finally {
+            dictionarySwapLock.unlockRead(stamp);
+        }
     }
 }
\ No newline at end of file
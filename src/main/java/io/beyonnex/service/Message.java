@@ -18,7 +18,9 @@ public enum Message {
             [2] Get anagrams of a string
             [3] Add anagram match replacement mode: 'LATIN', 'MODERN'
             [4] Remove anagram match replacement mode: 'LATIN', 'MODERN'
-            [5] Exit
+            [5] Rebuild the anagram dictionary under the active replacement modes
+            [6] Show anagram group statistics
+            [7] Exit
             *******************************************************************************************************************
             """),
     ENTER_TEXTS("Please enter the two texts (hit enter to confirm after each text):"),
@@ -35,8 +37,15 @@ public enum Message {
     REMOVE_REPLACEMENT_MODE("Please enter 'LATIN' or 'MODERN' to remove the replacement mode:"),
     INVALID_REPLACEMENT_MODE_REMOVE("' %s' is not a valid replacement mode. Please enter either 'LATIN' or 'MODERN'."),
     MODE_DEACTIVATED("Mode '%s' has been deactivated."),
+    REBUILD_STARTED("Rebuilding the anagram dictionary under the modes %s..."),
+    REBUILD_PROGRESS("Rebuilt %d of %d strings (%.0f strings/s)"),
+    REBUILD_FINISHED("Rebuilt %d strings into %d anagram groups in %d ms."),
+    GROUP_STATISTICS("%d anagram groups with %d strings in total."),
+    LARGEST_GROUPS("Largest anagram groups: %s"),
+    SIGNATURE_LENGTHS("Anagram groups by signature length: %s"),
+    GROUP_SIZES("Anagram groups by size: %s"),
     EXITING("Exiting..."),
-    INVALID_OPTION("' %s' is not a valid option. Please enter a number from 1 to 5."),
+    INVALID_OPTION("' %s' is not a valid option. Please enter a number from 1 to 7."),
     ERROR("Error: %s"),
     BACK_TO_MAIN_MENU("\nBack to main menu...\n");
 
@@ -0,0 +1,491 @@
+package io.beyonnex.service.cluster;
+
+import io.beyonnex.service.dictionary.AnagramDictionary;
+import io.beyonnex.service.statistics.GroupStatistics;
+import io.beyonnex.service.statistics.GroupStatisticsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_ADD;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_DROP;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_GET;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_HANDOFF;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_INSTALL;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_MEMBERSHIP;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_MULTI_ADD;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_MULTI_GET;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_SCAN;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_SIZE;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_STATS;
+import static io.beyonnex.service.cluster.NodeConnection.await;
+
+/**
+ * The ClusterAnagramDictionary is an AnagramDictionary whose groups are spread over several ClusterNode processes.
+ * Every signature is routed to the node owning its hash range, as decided by the SignaturePartitioner.
+ * <p>
+ * Bulk lookups are grouped by owner and sent as one request per node, with all nodes queried in parallel.
+ * Every node keeps the statistics of its own groups, so group statistics are combined from the nodes rather than
+ * counted by each dictionary, which would miss the inserts of the others.
+ * <p>
+ * The member list lives on the nodes, versioned by an epoch. On creation, the dictionary adopts the membership
+ * stored on the nodes, or installs the given nodes as epoch 1 on a fresh cluster. Every request is stamped with the
+ * epoch it was routed with; if a node rejects it as stale, the dictionary adopts the newer membership and retries.
+ * This way several dictionaries, e.g. in several processes, can share a cluster.
+ * <p>
+ * When a node joins, the groups of the ranges taken over by it are copied to it first. Then the grown membership is
+ * installed on the nodes, the strings inserted during the copy are copied as well, and only then the old owners drop
+ * the groups. If the join fails before the old owners dropped anything, the previous member list is installed again
+ * under a new epoch and the groups the new node received meanwhile are copied back. Joins must not be run by several
+ * dictionaries at the same time. Lookups and inserts of this dictionary wait while a join is in progress; those of
+ * other dictionaries may miss strings inserted during the copy until it is complete.
+ *
+ * @see ClusterNode
+ */
+public class ClusterAnagramDictionary implements AnagramDictionary, GroupStatisticsSource, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterAnagramDictionary.class);
+
+    /**
+     * Time after which a request to a node fails if no response has arrived.
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Number of times a request is routed again after a node rejected its membership epoch as stale.
+     */
+    private static final int MAX_ROUTING_ATTEMPTS = 10;
+    private static final long STALE_BACKOFF_MILLIS = 10;
+
+    /**
+     * Number of groups fetched from a node per request when visiting or moving groups. Nodes end a page earlier
+     * if its groups would not fit into a frame.
+     */
+    static final int SCAN_PAGE_SIZE = 1_000;
+
+    private final Duration requestTimeout;
+    private final Map<String, NodeConnection> connections = new ConcurrentHashMap<>();
+    private final ReadWriteLock membershipLock = new ReentrantReadWriteLock();
+    private volatile ClusterMembership membership;
+
+    /**
+     * Connects to the given cluster nodes, using the default request timeout.
+     *
+     * @param nodes - addresses of all current cluster nodes
+     * @throws IOException - if one of the nodes cannot be reached
+     */
+    public ClusterAnagramDictionary(List<InetSocketAddress> nodes) throws IOException {
+        this(nodes, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Connects to the given cluster nodes. If the nodes already store a membership, that membership is used,
+     * including members which are not among the given nodes. Otherwise, the given nodes become the members.
+     *
+     * @param nodes          - addresses of all current cluster nodes
+     * @param requestTimeout - time after which a request to a node fails if no response has arrived
+     * @throws IOException - if one of the nodes cannot be reached
+     */
+    public ClusterAnagramDictionary(List<InetSocketAddress> nodes, Duration requestTimeout) throws IOException {
+        this.requestTimeout = requestTimeout;
+        List<String> members = new ArrayList<>();
+        for (InetSocketAddress node : nodes) {
+            String nodeId = ClusterNode.idOf(node);
+            connections.put(nodeId, new NodeConnection(node, requestTimeout));
+            members.add(nodeId);
+        }
+        ClusterMembership stored = fetchMembership(members);
+        if (stored.epoch() == 0) {
+            ClusterMembership initial = new ClusterMembership(1, new SignaturePartitioner(members));
+            // a dictionary starting at the same time may have won, so adopt whatever the nodes hold afterwards
+            stored = members.stream()
+                    .map(member -> installOn(member, initial))
+                    .max(Comparator.comparingLong(ClusterMembership::epoch))
+                    .orElse(initial);
+        }
+        adopt(stored);
+    }
+
+    @Override
+    public int add(String signature, String original) {
+        return route(current -> await(connectionFor(current, signature).send(OP_ADD, out -> {
+            out.writeLong(current.epoch());
+            ClusterProtocol.writeString(out, signature);
+            ClusterProtocol.writeString(out, original);
+        }).thenApply(in -> read(in::readInt))));
+    }
+
+    @Override
+    public Set<String> get(String signature) {
+        return route(current -> await(connectionFor(current, signature).send(OP_GET, out -> {
+            out.writeLong(current.epoch());
+            ClusterProtocol.writeString(out, signature);
+        }).thenApply(in -> Set.copyOf(read(() -> ClusterProtocol.readStrings(in))))));
+    }
+
+    @Override
+    public Map<String, Set<String>> getAll(Collection<String> signatures) {
+        return route(current -> {
+            Map<String, List<String>> signaturesByOwner = new HashMap<>();
+            for (String signature : signatures) {
+                signaturesByOwner.computeIfAbsent(current.partitioner().ownerOf(signature), k -> new ArrayList<>())
+                        .add(signature);
+            }
+
+            List<CompletableFuture<Map<String, Set<String>>>> responses = new ArrayList<>();
+            signaturesByOwner.forEach((owner, ownedSignatures) -> responses.add(connections.get(owner)
+                    .send(OP_MULTI_GET, out -> {
+                        out.writeLong(current.epoch());
+                        ClusterProtocol.writeStrings(out, ownedSignatures);
+                    })
+                    .thenApply(in -> read(() -> ClusterProtocol.readGroups(in)))));
+
+            Map<String, Set<String>> groups = new HashMap<>();
+            for (CompletableFuture<Map<String, Set<String>>> response : responses) {
+                groups.putAll(await(response));
+            }
+            return groups;
+        });
+    }
+
+    @Override
+    public int size() {
+        return route(current -> {
+            List<CompletableFuture<Integer>> responses = new ArrayList<>();
+            for (String member : current.members()) {
+                responses.add(connections.get(member).send(OP_SIZE, out -> out.writeLong(current.epoch()))
+                        .thenApply(in -> read(in::readInt)));
+            }
+            int size = 0;
+            for (CompletableFuture<Integer> response : responses) {
+                size += await(response);
+            }
+            return size;
+        });
+    }
+
+    /**
+     * Returns true, as other routers may add groups to the same nodes.
+     */
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    /**
+     * Fetches the statistics of all nodes in parallel and combines them.
+     */
+    @Override
+    public GroupStatistics getGroupStatistics(int largestGroups) {
+        return route(current -> {
+            List<CompletableFuture<GroupStatistics>> responses = new ArrayList<>();
+            for (String member : current.members()) {
+                responses.add(connections.get(member).send(OP_STATS, out -> {
+                    out.writeLong(current.epoch());
+                    out.writeInt(largestGroups);
+                }).thenApply(in -> read(() -> ClusterProtocol.readStatistics(in))));
+            }
+            List<GroupStatistics> statistics = new ArrayList<>();
+            for (CompletableFuture<GroupStatistics> response : responses) {
+                statistics.add(await(response));
+            }
+            return GroupStatistics.merge(statistics, largestGroups);
+        });
+    }
+
+    /**
+     * Visits the groups of one node after the other. The groups are fetched in pages of at most SCAN_PAGE_SIZE
+     * groups and one frame, so only one page is held on the local heap at a time.
+     *
+     * @throws IllegalStateException - if a node joins after the first groups have been visited
+     */
+    @Override
+    public void forEach(BiConsumer<String, Set<String>> action) {
+        boolean[] visited = new boolean[1];
+        route(current -> {
+            if (visited[0]) {
+                throw new IllegalStateException("Cluster membership changed while visiting the groups");
+            }
+            for (String member : current.members()) {
+                long cursor = 0;
+                do {
+                    long pageCursor = cursor;
+                    ScanPage page = await(connections.get(member).send(OP_SCAN, out -> {
+                        out.writeLong(current.epoch());
+                        out.writeLong(pageCursor);
+                        out.writeInt(SCAN_PAGE_SIZE);
+                    }).thenApply(in -> read(() -> new ScanPage(0, in.readLong(), ClusterProtocol.readGroups(in)))));
+                    page.groups().forEach((signature, group) -> {
+                        visited[0] = true;
+                        action.accept(signature, group);
+                    });
+                    cursor = page.nextCursor();
+                } while (cursor != 0);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Adds a new node to the cluster and rebalances the hash ring. The groups whose signatures are now owned by the
+     * new node are copied to it, the grown membership is installed on all nodes, and then the old owners drop them.
+     *
+     * @param node - address of the joining node
+     * @return the number of groups moved to the new node
+     * @throws IOException - if the new node cannot be reached or a node holds an unexpected membership
+     * @throws UncheckedIOException - if a node fails during the join
+     */
+    public int join(InetSocketAddress node) throws IOException {
+        String nodeId = ClusterNode.idOf(node);
+        membershipLock.writeLock().lock();
+        try {
+            adopt(fetchMembership(membership.members()));
+            ClusterMembership previous = membership;
+            if (previous.members().contains(nodeId)) {
+                return 0;
+            }
+            NodeConnection joining = new NodeConnection(node, requestTimeout);
+            connections.put(nodeId, joining);
+            ClusterMembership grown = new ClusterMembership(previous.epoch() + 1, previous.partitioner().with(nodeId));
+
+            try {
+                Map<String, Long> lastCopiedInserts = new HashMap<>();
+                for (String member : previous.members()) {
+                    lastCopiedInserts.put(member, copyGroups(member, nodeId, grown, 0));
+                }
+                install(nodeId, grown);
+                for (String member : previous.members()) {
+                    install(member, grown);
+                }
+                for (String member : previous.members()) {
+                    copyGroups(member, nodeId, grown, lastCopiedInserts.get(member));
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Node {} failed to join the cluster, restoring the previous members: {}", nodeId,
+                        e.getMessage());
+                restore(previous, grown.epoch() + 1, nodeId);
+                throw e;
+            }
+            membership = grown;
+
+            int moved = 0;
+            for (String member : previous.members()) {
+                moved += await(connections.get(member).send(OP_DROP, out -> {
+                }).thenApply(in -> read(in::readInt)));
+            }
+            LOGGER.info("Node {} joined the cluster at epoch {}, {} groups moved", nodeId, grown.epoch(), moved);
+            return moved;
+        } finally {
+            membershipLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes the connections to all nodes. The nodes themselves keep running.
+     */
+    @Override
+    public void close() throws IOException {
+        for (NodeConnection connection : connections.values()) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Runs a request with the current membership. If a node rejects the request as stale, the newer membership of
+     * the node is adopted and the request is run again. A node lagging behind this dictionary, e.g. while a join is
+     * being installed, is given a moment to catch up.
+     */
+    private <T> T route(Function<ClusterMembership, T> request) {
+        for (int attempt = 1; ; attempt++) {
+            ClusterMembership nodeMembership;
+            membershipLock.readLock().lock();
+            try {
+                return request.apply(membership);
+            } catch (StaleMembershipException e) {
+                if (attempt == MAX_ROUTING_ATTEMPTS) {
+                    throw new UncheckedIOException(new IOException(
+                            "Cluster membership did not settle after " + attempt + " attempts", e));
+                }
+                nodeMembership = e.getNodeMembership();
+            } finally {
+                membershipLock.readLock().unlock();
+            }
+            if (nodeMembership.epoch() > membership.epoch()) {
+                membershipLock.writeLock().lock();
+                try {
+                    adopt(nodeMembership);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    membershipLock.writeLock().unlock();
+                }
+            } else {
+                try {
+                    Thread.sleep(STALE_BACKOFF_MILLIS * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new IOException("Interrupted while waiting for the cluster", e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches to the given membership if it is newer than the current one, connecting to members not known yet.
+     */
+    private void adopt(ClusterMembership newer) throws IOException {
+        if (membership != null && newer.epoch() <= membership.epoch()) {
+            return;
+        }
+        for (String member : newer.members()) {
+            if (!connections.containsKey(member)) {
+                connections.put(member, new NodeConnection(ClusterNode.addressOf(member), requestTimeout));
+            }
+        }
+        membership = newer;
+        LOGGER.info("Using cluster membership epoch {} with members {}", newer.epoch(), newer.members());
+    }
+
+    /**
+     * Returns the newest membership stored on any of the given nodes.
+     */
+    private ClusterMembership fetchMembership(Collection<String> members) {
+        List<CompletableFuture<ClusterMembership>> responses = new ArrayList<>();
+        for (String member : members) {
+            responses.add(connections.get(member).send(OP_MEMBERSHIP, out -> {
+            }).thenApply(in -> read(() -> ClusterProtocol.readMembership(in))));
+        }
+        ClusterMembership newest = ClusterMembership.NONE;
+        for (CompletableFuture<ClusterMembership> response : responses) {
+            ClusterMembership stored = await(response);
+            if (stored.epoch() > newest.epoch()) {
+                newest = stored;
+            }
+        }
+        return newest;
+    }
+
+    private ClusterMembership installOn(String member, ClusterMembership installed) {
+        return await(connections.get(member).send(OP_INSTALL, out -> {
+            ClusterProtocol.writeString(out, member);
+            ClusterProtocol.writeMembership(out, installed);
+        }).thenApply(in -> read(() -> ClusterProtocol.readMembership(in))));
+    }
+
+    private void install(String member, ClusterMembership installed) throws IOException {
+        ClusterMembership stored = installOn(member, installed);
+        if (stored.epoch() != installed.epoch()) {
+            throw new IOException("Node " + member + " is at membership epoch " + stored.epoch()
+                    + " instead of " + installed.epoch());
+        }
+    }
+
+    /**
+     * Copies the groups of the source node that the given membership assigns to the target node, page by page.
+     *
+     * @return the sequence number of the last insert on the source node covered by the copy
+     */
+    private long copyGroups(String source, String target, ClusterMembership membership, long afterInsert) {
+        ScanPage page = new ScanPage(0, 0, Map.of());
+        do {
+            long pageCursor = page.nextCursor();
+            page = await(connections.get(source).send(OP_HANDOFF, out -> {
+                ClusterProtocol.writeStrings(out, membership.members());
+                ClusterProtocol.writeString(out, target);
+                out.writeLong(afterInsert);
+                out.writeLong(pageCursor);
+                out.writeInt(SCAN_PAGE_SIZE);
+            }).thenApply(in -> read(() -> new ScanPage(in.readLong(), in.readLong(), ClusterProtocol.readGroups(in)))));
+            Map<String, Set<String>> copied = page.groups();
+            if (!copied.isEmpty()) {
+                await(connections.get(target).send(OP_MULTI_ADD, out -> ClusterProtocol.writeGroups(out, copied)));
+            }
+        } while (page.nextCursor() != 0);
+        return page.lastInsert();
+    }
+
+    /**
+     * Installs the previous members again after a failed join and copies the groups received by the joining node
+     * back to their owners, before the joining node drops them. Every step is attempted even if an earlier one
+     * failed, as the nodes involved in the failure may be unreachable.
+     */
+    private void restore(ClusterMembership previous, long epoch, String joiningId) {
+        ClusterMembership restored = new ClusterMembership(epoch, previous.partitioner());
+        List<String> involved = new ArrayList<>(previous.members());
+        involved.add(joiningId);
+        for (String member : involved) {
+            try {
+                installOn(member, restored);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to restore the membership on node {}: {}", member, e.getMessage());
+            }
+        }
+        membership = restored;
+        for (String member : previous.members()) {
+            try {
+                copyGroups(joiningId, member, restored, 0);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to copy the groups of node {} back to node {}: {}", joiningId, member,
+                        e.getMessage());
+            }
+        }
+        try {
+            await(connections.get(joiningId).send(OP_DROP, out -> {
+            }));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to drop the groups of node {}: {}", joiningId, e.getMessage());
+        }
+        try {
+            connections.remove(joiningId).close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close the connection to node {}: {}", joiningId, e.getMessage());
+        }
+    }
+
+    private NodeConnection connectionFor(ClusterMembership current, String signature) {
+        return connections.get(current.partitioner().ownerOf(signature));
+    }
+
+    /**
+     * A page of groups returned by a scan or a handoff.
+     *
+     * @param lastInsert - for a handoff, the sequence number of the last insert covered by it
+     * @param nextCursor - the cursor of the next page, or 0 if this is the last page
+     * @param groups     - the groups of this page
+     */
+    private record ScanPage(long lastInsert, long nextCursor, Map<String, Set<String>> groups) {
+    }
+
+    /**
+     * Reads a value from a response payload.
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read() throws IOException;
+    }
+
+    private static <T> T read(ResponseReader<T> reader) {
+        try {
+            return reader.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed response", e);
+        }
+    }
+}
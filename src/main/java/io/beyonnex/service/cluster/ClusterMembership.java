@@ -0,0 +1,25 @@
+package io.beyonnex.service.cluster;
+
+import java.util.List;
+
+/**
+ * A ClusterMembership is a version of the member list of the cluster. Every change of the members, i.e. every join,
+ * produces a membership with a higher epoch.
+ * <p>
+ * The nodes store the membership installed by the router and reject requests stamped with another epoch, so a router
+ * working with an outdated ring learns about the change on its next request.
+ *
+ * @param epoch       - the version of the member list, 0 if no membership was installed yet
+ * @param partitioner - the hash ring of the members
+ */
+record ClusterMembership(long epoch, SignaturePartitioner partitioner) {
+
+    /**
+     * The membership of a node that has not been made part of a cluster yet.
+     */
+    static final ClusterMembership NONE = new ClusterMembership(0, new SignaturePartitioner(List.of()));
+
+    List<String> members() {
+        return partitioner.members();
+    }
+}
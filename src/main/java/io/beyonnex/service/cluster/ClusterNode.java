@@ -0,0 +1,435 @@
+package io.beyonnex.service.cluster;
+
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.statistics.GroupStatistics;
+import io.beyonnex.service.statistics.StatisticsAnagramDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_ADD;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_DROP;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_GET;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_HANDOFF;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_INSTALL;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_MEMBERSHIP;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_MULTI_ADD;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_MULTI_GET;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_SCAN;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_SIZE;
+import static io.beyonnex.service.cluster.ClusterProtocol.OP_STATS;
+import static io.beyonnex.service.cluster.ClusterProtocol.STATUS_ERROR;
+import static io.beyonnex.service.cluster.ClusterProtocol.STATUS_OK;
+import static io.beyonnex.service.cluster.ClusterProtocol.STATUS_STALE;
+
+/**
+ * A ClusterNode is a single process of the dictionary cluster. It keeps the anagram groups of the signatures it owns
+ * in a local InMemoryAnagramDictionary and serves them over the binary ClusterProtocol.
+ * <p>
+ * Every connection is served by its own thread. Requests on a connection are answered in order, and responses are
+ * only flushed once no further pipelined request is waiting in the input buffer, so a burst of requests costs a
+ * single write on the socket.
+ * <p>
+ * Routing and rebalancing are driven by the ClusterAnagramDictionary, but the node stores the membership installed by
+ * it: the member list, its own id in it and the epoch of the list. Requests stamped with another epoch are rejected
+ * with the stored membership, so every router finds out about a join, also one driven by another router.
+ * Installing a membership waits for the requests in progress, so once it returns, no request of an older epoch
+ * can change the groups any more.
+ *
+ * @see ClusterAnagramDictionary
+ */
+public class ClusterNode implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterNode.class);
+
+    private final InMemoryAnagramDictionary dictionary = new InMemoryAnagramDictionary();
+    private volatile StatisticsAnagramDictionary statistics = new StatisticsAnagramDictionary(dictionary);
+    private final ServerSocket serverSocket;
+    private final Set<Socket> acceptedSockets = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock membershipLock = new ReentrantReadWriteLock();
+    private volatile ClusterMembership membership = ClusterMembership.NONE;
+    private volatile String selfId;
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cluster-node-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Binds the node to the given address and starts accepting connections.
+     * Use port 0 to let the operating system pick a free port.
+     *
+     * @param bindAddress - the address to listen on
+     * @throws IOException - if the address cannot be bound
+     */
+    public ClusterNode(InetSocketAddress bindAddress) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(bindAddress);
+        Thread acceptor = new Thread(this::acceptConnections, "cluster-node-" + serverSocket.getLocalPort());
+        acceptor.start();
+        LOGGER.info("Cluster node listening on {}", getAddress());
+    }
+
+    /**
+     * Returns the address this node is listening on.
+     *
+     * @return the bound address, including the actual port
+     */
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    /**
+     * Returns the number of groups held by this node.
+     *
+     * @return the number of locally owned signatures
+     */
+    public int size() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the id under which a node is known on the hash ring.
+     *
+     * @param address - the address of the node
+     * @return the id in the form 'host:port'
+     */
+    public static String idOf(InetSocketAddress address) {
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Returns the address of a node from the id under which it is known on the hash ring.
+     *
+     * @param nodeId - the id in the form 'host:port'
+     * @return the address of the node
+     */
+    public static InetSocketAddress addressOf(String nodeId) {
+        int separator = nodeId.lastIndexOf(':');
+        return new InetSocketAddress(nodeId.substring(0, separator), Integer.parseInt(nodeId.substring(separator + 1)));
+    }
+
+    /**
+     * Stops accepting connections and closes all open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : acceptedSockets) {
+            socket.close();
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                acceptedSockets.add(socket);
+                if (serverSocket.isClosed()) {
+                    socket.close();
+                    break;
+                }
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOGGER.error("Failed to accept connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            OpenScans scans = new OpenScans();
+            ClusterProtocol.Frame request;
+            while ((request = ClusterProtocol.readFrame(in)) != null) {
+                byte status = STATUS_OK;
+                byte[] response;
+                try {
+                    response = handle(request, scans);
+                } catch (StaleMembershipException e) {
+                    status = STATUS_STALE;
+                    response = ClusterProtocol.payload(o -> ClusterProtocol.writeMembership(o, e.getNodeMembership()));
+                } catch (RuntimeException e) {
+                    status = STATUS_ERROR;
+                    String message = String.valueOf(e.getMessage());
+                    response = ClusterProtocol.payload(o -> ClusterProtocol.writeString(o, message));
+                }
+                ClusterProtocol.writeFrame(out, request.requestId(), status, response);
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                LOGGER.warn("Connection closed: {}", e.getMessage());
+            }
+        } finally {
+            acceptedSockets.remove(socket);
+        }
+    }
+
+    private byte[] handle(ClusterProtocol.Frame request, OpenScans scans) throws IOException {
+        DataInputStream in = request.payload();
+        switch (request.code()) {
+            case OP_ADD, OP_GET, OP_MULTI_GET, OP_SIZE, OP_SCAN, OP_STATS: {
+                long epoch = in.readLong();
+                membershipLock.readLock().lock();
+                try {
+                    if (epoch != membership.epoch()) {
+                        throw new StaleMembershipException(membership);
+                    }
+                    return handleGroups(request.code(), in, scans);
+                } finally {
+                    membershipLock.readLock().unlock();
+                }
+            }
+            case OP_MULTI_ADD: {
+                Map<String, Set<String>> groups = ClusterProtocol.readGroups(in);
+                int added = 0;
+                membershipLock.readLock().lock();
+                try {
+                    for (Map.Entry<String, Set<String>> group : groups.entrySet()) {
+                        for (String original : group.getValue()) {
+                            if (statistics.add(group.getKey(), original) > 0) {
+                                added++;
+                            }
+                        }
+                    }
+                } finally {
+                    membershipLock.readLock().unlock();
+                }
+                int addedCount = added;
+                return ClusterProtocol.payload(out -> out.writeInt(addedCount));
+            }
+            case OP_HANDOFF: {
+                SignaturePartitioner partitioner = new SignaturePartitioner(ClusterProtocol.readStrings(in));
+                String target = ClusterProtocol.readString(in);
+                long afterInsert = in.readLong();
+                long cursor = in.readLong();
+                int limit = in.readInt();
+                Scan scan;
+                if (cursor != 0) {
+                    scan = scans.resume(cursor);
+                } else {
+                    long lastInsert;
+                    // waits for the inserts in progress, so every insert up to lastInsert is visible to the scan
+                    membershipLock.writeLock().lock();
+                    try {
+                        lastInsert = dictionary.lastInsert();
+                    } finally {
+                        membershipLock.writeLock().unlock();
+                    }
+                    scan = new Scan(dictionary.groups(s -> partitioner.ownerOf(s).equals(target), afterInsert),
+                            lastInsert);
+                    LOGGER.info("Copying groups to {}", target);
+                }
+                Map<String, Set<String>> page = scan.nextPage(limit);
+                long nextCursor = scans.suspend(cursor, scan);
+                long lastInsert = scan.lastInsert();
+                return ClusterProtocol.payload(out -> {
+                    out.writeLong(lastInsert);
+                    out.writeLong(nextCursor);
+                    ClusterProtocol.writeGroups(out, page);
+                });
+            }
+            case OP_DROP: {
+                int dropped;
+                membershipLock.readLock().lock();
+                try {
+                    ClusterMembership current = membership;
+                    String self = selfId;
+                    dropped = self == null ? 0
+                            : dictionary.extractIf(s -> !current.partitioner().ownerOf(s).equals(self)).size();
+                } finally {
+                    membershipLock.readLock().unlock();
+                }
+                if (dropped > 0) {
+                    // the statistics only ever grow, so the remaining groups are counted anew on next use
+                    membershipLock.writeLock().lock();
+                    try {
+                        statistics = new StatisticsAnagramDictionary(dictionary);
+                    } finally {
+                        membershipLock.writeLock().unlock();
+                    }
+                }
+                LOGGER.info("Dropped {} groups owned by other nodes", dropped);
+                return ClusterProtocol.payload(out -> out.writeInt(dropped));
+            }
+            case OP_INSTALL: {
+                String self = ClusterProtocol.readString(in);
+                ClusterMembership installed = ClusterProtocol.readMembership(in);
+                membershipLock.writeLock().lock();
+                try {
+                    if (installed.epoch() > membership.epoch()) {
+                        selfId = self;
+                        membership = installed;
+                        LOGGER.info("Installed membership epoch {} with members {}", installed.epoch(),
+                                installed.members());
+                    }
+                    ClusterMembership current = membership;
+                    return ClusterProtocol.payload(out -> ClusterProtocol.writeMembership(out, current));
+                } finally {
+                    membershipLock.writeLock().unlock();
+                }
+            }
+            case OP_MEMBERSHIP: {
+                ClusterMembership current = membership;
+                return ClusterProtocol.payload(out -> ClusterProtocol.writeMembership(out, current));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation " + request.code());
+        }
+    }
+
+    private byte[] handleGroups(byte operation, DataInputStream in, OpenScans scans) throws IOException {
+        switch (operation) {
+            case OP_ADD: {
+                String signature = ClusterProtocol.readString(in);
+                String original = ClusterProtocol.readString(in);
+                int groupSize = statistics.add(signature, original);
+                return ClusterProtocol.payload(out -> out.writeInt(groupSize));
+            }
+            case OP_GET: {
+                Set<String> group = dictionary.get(ClusterProtocol.readString(in));
+                return ClusterProtocol.payload(out -> ClusterProtocol.writeStrings(out, group));
+            }
+            case OP_MULTI_GET: {
+                List<String> signatures = ClusterProtocol.readStrings(in);
+                Map<String, Set<String>> groups = dictionary.getAll(signatures);
+                return ClusterProtocol.payload(out -> ClusterProtocol.writeGroups(out, groups));
+            }
+            case OP_STATS: {
+                GroupStatistics groupStatistics = statistics.getStatistics(in.readInt());
+                return ClusterProtocol.payload(out -> ClusterProtocol.writeStatistics(out, groupStatistics));
+            }
+            case OP_SIZE: {
+                int size = dictionary.size();
+                return ClusterProtocol.payload(out -> out.writeInt(size));
+            }
+            case OP_SCAN: {
+                long cursor = in.readLong();
+                int limit = in.readInt();
+                Scan scan = cursor != 0 ? scans.resume(cursor) : new Scan(dictionary.groups(s -> true, 0), 0);
+                Map<String, Set<String>> page = scan.nextPage(limit);
+                long nextCursor = scans.suspend(cursor, scan);
+                return ClusterProtocol.payload(out -> {
+                    out.writeLong(nextCursor);
+                    ClusterProtocol.writeGroups(out, page);
+                });
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    /**
+     * A scan over the groups that is answered in pages. A page ends after the requested number of groups, or before
+     * the group that would make it exceed MAX_PAGE_LENGTH bytes; that group starts the next page.
+     */
+    private static final class Scan {
+
+        private final Iterator<Map.Entry<String, Set<String>>> groups;
+        private final long lastInsert;
+        private Map.Entry<String, Set<String>> nextGroup;
+
+        /**
+         * @param groups     - the groups not visited yet
+         * @param lastInsert - the sequence number of the last insert when the scan started
+         */
+        Scan(Iterator<Map.Entry<String, Set<String>>> groups, long lastInsert) {
+            this.groups = groups;
+            this.lastInsert = lastInsert;
+        }
+
+        long lastInsert() {
+            return lastInsert;
+        }
+
+        boolean hasNext() {
+            return nextGroup != null || groups.hasNext();
+        }
+
+        Map<String, Set<String>> nextPage(int limit) {
+            Map<String, Set<String>> page = new HashMap<>();
+            long pageLength = Integer.BYTES;
+            while (page.size() < limit && hasNext()) {
+                Map.Entry<String, Set<String>> group = nextGroup != null ? nextGroup : groups.next();
+                nextGroup = null;
+                long groupLength = ClusterProtocol.groupLength(group.getKey(), group.getValue());
+                if (pageLength + groupLength > ClusterProtocol.MAX_PAGE_LENGTH) {
+                    if (page.isEmpty()) {
+                        throw new IllegalStateException("Group " + group.getKey() + " of " + groupLength
+                                + " bytes exceeds the page limit of " + ClusterProtocol.MAX_PAGE_LENGTH + " bytes");
+                    }
+                    nextGroup = group;
+                    break;
+                }
+                page.put(group.getKey(), group.getValue());
+                pageLength += groupLength;
+            }
+            return page;
+        }
+    }
+
+    /**
+     * The unfinished scans of one connection by cursor. Scans abandoned by the client are dropped with the
+     * connection, or once too many scans are open on it.
+     */
+    private static final class OpenScans extends LinkedHashMap<Long, Scan> {
+
+        private static final int MAX_OPEN_SCANS = 16;
+
+        private long lastCursor;
+
+        Scan resume(long cursor) {
+            Scan scan = remove(cursor);
+            if (scan == null) {
+                throw new IllegalArgumentException("Unknown or expired scan cursor " + cursor);
+            }
+            return scan;
+        }
+
+        /**
+         * Keeps the scan for its next page, if there is one.
+         *
+         * @return the cursor of the next page, or 0 if the scan is complete
+         */
+        long suspend(long cursor, Scan scan) {
+            if (!scan.hasNext()) {
+                return 0;
+            }
+            long nextCursor = cursor != 0 ? cursor : ++lastCursor;
+            put(nextCursor, scan);
+            return nextCursor;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Scan> eldest) {
+            return size() > MAX_OPEN_SCANS;
+        }
+    }
+}
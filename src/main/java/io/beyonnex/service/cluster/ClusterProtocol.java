@@ -0,0 +1,252 @@
+package io.beyonnex.service.cluster;
+
+import io.beyonnex.service.statistics.GroupStatistics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The ClusterProtocol holds the binary wire format spoken between the cluster router and the cluster nodes.
+ * <p>
+ * Every message is a frame of the form {@code [int length][int requestId][byte code][payload]}, where the length
+ * counts all bytes after itself and is limited to {@link #MAX_FRAME_LENGTH}. Requests carry an operation code,
+ * responses a status code. Responses are written in request order and carry the id of their request, so a client
+ * can pipeline many requests on one connection. Strings are written as an int byte count followed by their UTF-8
+ * bytes.
+ * <p>
+ * Requests reading or writing groups start with the membership epoch the router routed them with. A node installed
+ * with another epoch answers them with {@link #STATUS_STALE} and its own membership instead.
+ */
+final class ClusterProtocol {
+
+    static final byte OP_ADD = 1;
+    static final byte OP_GET = 2;
+    static final byte OP_MULTI_ADD = 3;
+    static final byte OP_MULTI_GET = 4;
+    static final byte OP_HANDOFF = 5;
+    static final byte OP_SIZE = 6;
+    static final byte OP_SCAN = 7;
+    static final byte OP_INSTALL = 8;
+    static final byte OP_MEMBERSHIP = 9;
+    static final byte OP_DROP = 10;
+    static final byte OP_STATS = 11;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+    static final byte STATUS_STALE = 2;
+
+    /**
+     * Upper bound of the length of a frame. Larger frames are neither written nor read, so a corrupt or hostile peer
+     * cannot make the reader allocate arbitrary amounts of memory. Requests that may return many groups are paged.
+     */
+    static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Upper bound of the encoded groups of one page of a scan. It leaves room for the rest of the response and for
+     * groups growing while the page is written.
+     */
+    static final int MAX_PAGE_LENGTH = MAX_FRAME_LENGTH - 64 * 1024;
+
+    private static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES;
+
+    private ClusterProtocol() {
+    }
+
+    /**
+     * A single decoded frame. The payload stream is positioned right after the frame header.
+     */
+    record Frame(int requestId, byte code, DataInputStream payload) {
+    }
+
+    /**
+     * Writes the payload of a frame.
+     */
+    @FunctionalInterface
+    interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    static byte[] payload(PayloadWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writer.write(out);
+        out.flush();
+        if (bytes.size() > MAX_FRAME_LENGTH - HEADER_LENGTH) {
+            throw new UncheckedIOException(new IOException(
+                    "Payload of " + bytes.size() + " bytes exceeds the frame limit of " + MAX_FRAME_LENGTH + " bytes"));
+        }
+        return bytes.toByteArray();
+    }
+
+    static void writeFrame(DataOutputStream out, int requestId, byte code, byte[] payload) throws IOException {
+        out.writeInt(HEADER_LENGTH + payload.length);
+        out.writeInt(requestId);
+        out.writeByte(code);
+        out.write(payload);
+    }
+
+    /**
+     * Reads the next frame from the stream.
+     *
+     * @return the frame, or null if the peer closed the connection between two frames
+     */
+    static Frame readFrame(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < HEADER_LENGTH || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        int requestId = in.readInt();
+        byte code = in.readByte();
+        byte[] payload = new byte[length - HEADER_LENGTH];
+        in.readFully(payload);
+        return new Frame(requestId, code, new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        // payloads are read from memory, so available() is the exact number of bytes left in the frame
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / Integer.BYTES) {
+            throw new IOException("Invalid string count " + count);
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    static void writeGroups(DataOutputStream out, Map<String, Set<String>> groups) throws IOException {
+        out.writeInt(groups.size());
+        for (Map.Entry<String, Set<String>> group : groups.entrySet()) {
+            writeString(out, group.getKey());
+            writeStrings(out, group.getValue());
+        }
+    }
+
+    /**
+     * Returns the number of bytes writeGroups takes for a single group, without encoding it.
+     */
+    static long groupLength(String signature, Set<String> group) {
+        long length = Integer.BYTES + utf8Length(signature) + Integer.BYTES;
+        for (String original : group) {
+            length += Integer.BYTES + utf8Length(original);
+        }
+        return length;
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                // a surrogate pair takes four bytes for two chars
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    static Map<String, Set<String>> readGroups(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, Set<String>> groups = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String signature = readString(in);
+            groups.put(signature, Set.copyOf(readStrings(in)));
+        }
+        return groups;
+    }
+
+    static void writeMembership(DataOutputStream out, ClusterMembership membership) throws IOException {
+        out.writeLong(membership.epoch());
+        writeStrings(out, membership.members());
+    }
+
+    static ClusterMembership readMembership(DataInputStream in) throws IOException {
+        long epoch = in.readLong();
+        return new ClusterMembership(epoch, new SignaturePartitioner(readStrings(in)));
+    }
+
+    static void writeStatistics(DataOutputStream out, GroupStatistics statistics) throws IOException {
+        out.writeLong(statistics.groups());
+        out.writeLong(statistics.originals());
+        out.writeInt(statistics.largestGroups().size());
+        for (GroupStatistics.GroupSize group : statistics.largestGroups()) {
+            writeString(out, group.signature());
+            out.writeInt(group.size());
+        }
+        writeHistogram(out, statistics.signatureLengths());
+        writeHistogram(out, statistics.groupSizes());
+    }
+
+    static GroupStatistics readStatistics(DataInputStream in) throws IOException {
+        long groups = in.readLong();
+        long originals = in.readLong();
+        int count = in.readInt();
+        List<GroupStatistics.GroupSize> largestGroups = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            largestGroups.add(new GroupStatistics.GroupSize(readString(in), in.readInt()));
+        }
+        return new GroupStatistics(groups, originals, largestGroups, readHistogram(in), readHistogram(in));
+    }
+
+    private static void writeHistogram(DataOutputStream out, SortedMap<Integer, Long> histogram) throws IOException {
+        out.writeInt(histogram.size());
+        for (Map.Entry<Integer, Long> bucket : histogram.entrySet()) {
+            out.writeInt(bucket.getKey());
+            out.writeLong(bucket.getValue());
+        }
+    }
+
+    private static SortedMap<Integer, Long> readHistogram(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        SortedMap<Integer, Long> histogram = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            histogram.put(in.readInt(), in.readLong());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,149 @@
+package io.beyonnex.service.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.beyonnex.service.cluster.ClusterProtocol.STATUS_OK;
+import static io.beyonnex.service.cluster.ClusterProtocol.STATUS_STALE;
+
+/**
+ * A NodeConnection is the client side of a single TCP connection to a ClusterNode.
+ * <p>
+ * Requests are written without waiting for earlier responses. A reader thread matches every incoming response
+ * to the future of its request by request id, so any number of threads can share one connection.
+ * <p>
+ * A request fails if its response does not arrive within the request timeout. Once the reader thread has exited,
+ * because the node closed the connection or the stream broke, all pending and all further requests fail at once.
+ */
+final class NodeConnection implements AutoCloseable {
+
+    private final String nodeId;
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<DataInputStream>> pending = new ConcurrentHashMap<>();
+    private final long requestTimeoutMillis;
+    private volatile IOException closedCause;
+
+    NodeConnection(InetSocketAddress address, Duration requestTimeout) throws IOException {
+        this.nodeId = ClusterNode.idOf(address);
+        this.requestTimeoutMillis = requestTimeout.toMillis();
+        this.socket = new Socket(address.getAddress(), address.getPort());
+        this.socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Thread reader = new Thread(this::readResponses, "cluster-client-" + nodeId);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Sends a request to the node.
+     *
+     * @param operation - the operation code
+     * @param writer    - writes the request payload
+     * @return future completed with the response payload, or exceptionally if the node reported an error or
+     * a stale membership epoch, the request timed out or the connection is lost
+     */
+    CompletableFuture<DataInputStream> send(byte operation, ClusterProtocol.PayloadWriter writer) {
+        int requestId = nextRequestId.incrementAndGet();
+        CompletableFuture<DataInputStream> response = new CompletableFuture<>();
+        response.orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((payload, failure) -> pending.remove(requestId));
+        pending.put(requestId, response);
+        // failPending marks the connection as closed before it drains the pending requests, so a request registered
+        // concurrently is either drained there or sees the mark here
+        IOException closed = closedCause;
+        if (closed != null) {
+            response.completeExceptionally(lostConnection(closed));
+            return response;
+        }
+        try {
+            byte[] payload = ClusterProtocol.payload(writer);
+            synchronized (out) {
+                ClusterProtocol.writeFrame(out, requestId, operation, payload);
+                out.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(requestId);
+            response.completeExceptionally(new UncheckedIOException("Failed to send request to " + nodeId, e));
+        } catch (UncheckedIOException e) {
+            pending.remove(requestId);
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    /**
+     * Waits for a response and unwraps the failure of the request, if any.
+     */
+    static <T> T await(CompletableFuture<T> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof TimeoutException timeout) {
+                throw new UncheckedIOException(new IOException("Request to cluster node timed out", timeout));
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void readResponses() {
+        try {
+            ClusterProtocol.Frame response;
+            while ((response = ClusterProtocol.readFrame(in)) != null) {
+                CompletableFuture<DataInputStream> future = pending.remove(response.requestId());
+                if (future == null) {
+                    continue;
+                }
+                if (response.code() == STATUS_OK) {
+                    future.complete(response.payload());
+                } else if (response.code() == STATUS_STALE) {
+                    future.completeExceptionally(
+                            new StaleMembershipException(ClusterProtocol.readMembership(response.payload())));
+                } else {
+                    String message = ClusterProtocol.readString(response.payload());
+                    future.completeExceptionally(new UncheckedIOException(
+                            new IOException("Node " + nodeId + " failed: " + message)));
+                }
+            }
+            failPending(new IOException("Connection to " + nodeId + " closed"));
+        } catch (IOException e) {
+            failPending(e);
+        }
+    }
+
+    private void failPending(IOException cause) {
+        closedCause = cause;
+        UncheckedIOException failure = lostConnection(cause);
+        pending.values().forEach(future -> future.completeExceptionally(failure));
+        pending.clear();
+    }
+
+    private UncheckedIOException lostConnection(IOException cause) {
+        return new UncheckedIOException("Lost connection to " + nodeId, cause);
+    }
+}
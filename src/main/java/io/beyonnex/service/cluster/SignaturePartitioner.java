@@ -0,0 +1,85 @@
+package io.beyonnex.service.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The SignaturePartitioner maps every signature to the cluster node owning it. It places a number of virtual tokens
+ * per node on a 32-bit hash ring; a signature belongs to the node of the first token at or after its own hash.
+ * <p>
+ * The partitioner is immutable and fully determined by its member list, so every node can rebuild the same ring
+ * from the member ids alone. Adding a node only moves the signatures that fall into the ranges of its new tokens.
+ */
+public final class SignaturePartitioner {
+
+    /**
+     * Number of tokens placed on the ring for every node. More tokens give a more even spread of the signatures.
+     */
+    public static final int TOKENS_PER_NODE = 64;
+
+    private final List<String> members;
+    private final NavigableMap<Integer, String> ring = new TreeMap<>();
+
+    /**
+     * Creates the ring for the given node ids.
+     *
+     * @param members - ids of all cluster nodes, in the form 'host:port'
+     */
+    public SignaturePartitioner(List<String> members) {
+        this.members = List.copyOf(members);
+        for (String member : this.members) {
+            for (int token = 0; token < TOKENS_PER_NODE; token++) {
+                ring.put(hash(member + "#" + token), member);
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of all nodes on the ring.
+     *
+     * @return List<String> - the member ids
+     */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * Returns a new partitioner that additionally contains the given node.
+     *
+     * @param member - id of the joining node
+     * @return the partitioner of the grown cluster
+     */
+    public SignaturePartitioner with(String member) {
+        List<String> grown = new ArrayList<>(members);
+        grown.add(member);
+        return new SignaturePartitioner(grown);
+    }
+
+    /**
+     * Returns the id of the node owning the given signature.
+     *
+     * @param signature - the signature to be routed
+     * @return the id of the owning node
+     */
+    public String ownerOf(String signature) {
+        Map.Entry<Integer, String> token = ring.ceilingEntry(hash(signature));
+        return token != null ? token.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Spreads the bits of String.hashCode, which is stable across JVMs but poorly distributed for short strings,
+     * with the finalizer of MurmurHash3.
+     */
+    private static int hash(String value) {
+        int h = value.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
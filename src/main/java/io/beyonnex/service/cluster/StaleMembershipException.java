@@ -0,0 +1,19 @@
+package io.beyonnex.service.cluster;
+
+/**
+ * Thrown when a request was stamped with another membership epoch than the one installed on the node.
+ * It carries the membership of the node, so the router can catch up with it.
+ */
+final class StaleMembershipException extends RuntimeException {
+
+    private final transient ClusterMembership nodeMembership;
+
+    StaleMembershipException(ClusterMembership nodeMembership) {
+        super("Node is at membership epoch " + nodeMembership.epoch());
+        this.nodeMembership = nodeMembership;
+    }
+
+    ClusterMembership getNodeMembership() {
+        return nodeMembership;
+    }
+}
@@ -0,0 +1,145 @@
+package io.beyonnex.service.dictionary;
+
+import io.beyonnex.service.error.FindrException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import static io.beyonnex.service.error.FindrException.UNSUPPORTED_REBUILD_ERROR;
+
+/**
+ * The AnagramDictionary interface describes the storage behind the AnagramService. Every stored original string is
+ * kept in a group under its signature, which is the normalized (transformed, lower-cased and sorted) form of the string.
+ * <p>
+ * The AnagramService only computes signatures; where and how the groups are kept is up to the implementation.
+ * This allows the dictionary to live on the local heap or be spread over several processes.
+ *
+ * @see InMemoryAnagramDictionary
+ */
+public interface AnagramDictionary {
+
+    /**
+     * Adds the original string to the group stored under the given signature.
+     *
+     * @param signature - the normalized version of the original string
+     * @param original  - the original string
+     * @return the size of the group after the original string was added, or 0 if it was already part of the group
+     */
+    int add(String signature, String original);
+
+    /**
+     * Returns all original strings stored under the given signature.
+     *
+     * @param signature - the signature to be looked up
+     * @return Set<String> - the group of the signature, or an empty set if the signature is unknown
+     */
+    Set<String> get(String signature);
+
+    /**
+     * Returns the groups of several signatures at once. Implementations that are backed by remote storage
+     * should override this method to fetch the groups in as few round trips as possible.
+     *
+     * @param signatures - the signatures to be looked up
+     * @return Map<String, Set<String>> - the group of each requested signature, empty for unknown signatures
+     */
+    default Map<String, Set<String>> getAll(Collection<String> signatures) {
+        Map<String, Set<String>> groups = new HashMap<>();
+        for (String signature : signatures) {
+            groups.put(signature, get(signature));
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the number of groups, i.e. the number of distinct signatures, held by this dictionary.
+     *
+     * @return the number of groups
+     */
+    int size();
+
+    /**
+     * Performs the given action for every group of this dictionary. Groups added while the iteration is running
+     * may or may not be visited.
+     *
+     * @param action - the action receiving the signature and the original strings of each group
+     */
+    void forEach(BiConsumer<String, Set<String>> action);
+
+    /**
+     * Returns a read-only view of the groups as they are at the time of the call, which stays consistent while
+     * inserts continue. Implementations that cannot provide such a view return the live dictionary itself, e.g. a
+     * cluster, whose nodes would have to agree on a point in time. Callers walking the returned dictionary, like
+     * an export, then see the live groups, and inserts made during the walk may or may not be visited.
+     *
+     * @return a point-in-time view of this dictionary, or this dictionary
+     */
+    default AnagramDictionary snapshot() {
+        return this;
+    }
+
+    /**
+     * Creates a new, empty dictionary of the same kind as this one, wrapped in the same decorators, e.g. to rebuild
+     * the groups into. Dictionaries whose groups are not held by this process, like a cluster, cannot do this.
+     *
+     * @return an empty dictionary configured like this one
+     * @throws FindrException - if this dictionary cannot create an empty copy of itself
+     */
+    default AnagramDictionary newEmpty() {
+        throw new FindrException(String.format(UNSUPPORTED_REBUILD_ERROR, getClass().getSimpleName()));
+    }
+
+    /**
+     * Returns whether other processes may add groups to this dictionary as well, e.g. a cluster shared by several
+     * routers. Decorators only knowing what was added through them, like a Bloom filter, cannot be put in front of
+     * such a dictionary. Decorators return whether the dictionary they wrap is shared.
+     *
+     * @return true if groups may be added without passing through this dictionary
+     */
+    default boolean isShared() {
+        AnagramDictionary delegate = getDelegate();
+        return delegate != null && delegate.isShared();
+    }
+
+    /**
+     * Called once this dictionary is no longer used, e.g. after a rebuild replaced it or failed, to give back what
+     * was accounted for it. Lookups still running on it must keep working. Decorators pass the call on to the
+     * dictionary they wrap.
+     */
+    default void discard() {
+        AnagramDictionary delegate = getDelegate();
+        if (delegate != null) {
+            delegate.discard();
+        }
+    }
+
+    /**
+     * Returns the dictionary wrapped by this one. Decorators adding a feature on top of another dictionary, like
+     * a Bloom filter or statistics, return the dictionary they wrap; dictionaries holding the groups return null.
+     *
+     * @return the wrapped dictionary, or null if this dictionary wraps no other one
+     */
+    default AnagramDictionary getDelegate() {
+        return null;
+    }
+
+    /**
+     * Finds the first dictionary of the given type in a chain of decorators, starting with the given dictionary.
+     * The type may also be an interface implemented by one of the dictionaries.
+     *
+     * @param dictionary - the outermost dictionary of the chain
+     * @param type       - the type of the dictionary to be found
+     * @return Optional<T> - the dictionary of the given type, or empty if the chain holds none
+     */
+    static <T> Optional<T> find(AnagramDictionary dictionary, Class<T> type) {
+        for (AnagramDictionary current = dictionary; current != null; current = current.getDelegate()) {
+            if (type.isInstance(current)) {
+                return Optional.of(type.cast(current));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,185 @@
+package io.beyonnex.service.dictionary;
+
+import io.beyonnex.service.error.FindrException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import static io.beyonnex.service.error.FindrException.SHARED_BLOOM_FILTER_ERROR;
+
+/**
+ * The BloomFilteredAnagramDictionary puts a SignatureBloomFilter in front of another AnagramDictionary.
+ * Lookups of signatures that were never added are answered by the filter alone, without touching the
+ * wrapped dictionary. This pays off when most lookups are misses.
+ * <p>
+ * The filter only knows the signatures added through it. It therefore cannot be put in front of a shared dictionary,
+ * like a cluster that other routers write to as well, as their groups would be reported as definite misses.
+ * <p>
+ * Every lookup is counted, so the effect of the filter can be observed through getFilterStatistics.
+ *
+ * @see SignatureBloomFilter
+ */
+public class BloomFilteredAnagramDictionary implements AnagramDictionary {
+
+    private final AnagramDictionary delegate;
+    private final SignatureBloomFilter filter;
+    private final LongAdder filteredLookups = new LongAdder();
+    private final LongAdder passedLookups = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Wraps the given dictionary with a new, empty filter. Groups already held by the dictionary are added
+     * to the filter.
+     *
+     * @param delegate           - the dictionary holding the groups
+     * @param expectedSignatures - the number of signatures the filter is sized for
+     * @param falsePositiveRate  - the desired false positive rate of the filter
+     * @throws FindrException - if the dictionary is shared with other processes
+     */
+    public BloomFilteredAnagramDictionary(AnagramDictionary delegate, long expectedSignatures, double falsePositiveRate) {
+        this(delegate, new SignatureBloomFilter(expectedSignatures, falsePositiveRate));
+        delegate.forEach((signature, group) -> filter.put(signature));
+    }
+
+    /**
+     * Wraps the given dictionary with an existing filter, e.g. one restored from a snapshot.
+     * The filter must already contain all signatures of the dictionary.
+     *
+     * @param delegate - the dictionary holding the groups
+     * @param filter   - the filter over the signatures of the dictionary
+     * @throws FindrException - if the dictionary is shared with other processes
+     */
+    public BloomFilteredAnagramDictionary(AnagramDictionary delegate, SignatureBloomFilter filter) {
+        if (delegate.isShared()) {
+            throw new FindrException(String.format(SHARED_BLOOM_FILTER_ERROR, delegate.getClass().getSimpleName()));
+        }
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    /**
+     * The signature is added to the filter before the group, so a concurrent lookup never misses a stored group.
+     */
+    @Override
+    public int add(String signature, String original) {
+        filter.put(signature);
+        return delegate.add(signature, original);
+    }
+
+    @Override
+    public Set<String> get(String signature) {
+        if (!filter.mightContain(signature)) {
+            filteredLookups.increment();
+            return Set.of();
+        }
+        passedLookups.increment();
+        Set<String> group = delegate.get(signature);
+        if (group.isEmpty()) {
+            falsePositives.increment();
+        }
+        return group;
+    }
+
+    @Override
+    public Map<String, Set<String>> getAll(Collection<String> signatures) {
+        Map<String, Set<String>> groups = new HashMap<>();
+        List<String> candidates = new ArrayList<>();
+        for (String signature : signatures) {
+            if (filter.mightContain(signature)) {
+                candidates.add(signature);
+            } else {
+                filteredLookups.increment();
+                groups.put(signature, Set.of());
+            }
+        }
+        if (!candidates.isEmpty()) {
+            passedLookups.add(candidates.size());
+            Map<String, Set<String>> found = delegate.getAll(candidates);
+            for (String candidate : candidates) {
+                Set<String> group = found.getOrDefault(candidate, Set.of());
+                if (group.isEmpty()) {
+                    falsePositives.increment();
+                }
+                groups.put(candidate, group);
+            }
+        }
+        return groups;
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<String>> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public AnagramDictionary snapshot() {
+        return delegate.snapshot();
+    }
+
+    /**
+     * Returns the filter in front of the dictionary.
+     *
+     * @return the Bloom filter over all stored signatures
+     */
+    public SignatureBloomFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns an empty copy of the wrapped dictionary behind an empty filter of the same size.
+     */
+    @Override
+    public AnagramDictionary newEmpty() {
+        return new BloomFilteredAnagramDictionary(delegate.newEmpty(), filter.newEmpty());
+    }
+
+    /**
+     * Returns the wrapped dictionary.
+     *
+     * @return the dictionary holding the groups
+     */
+    @Override
+    public AnagramDictionary getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the lookup counters of the filter.
+     *
+     * @return the counters at the time of the call
+     */
+    public FilterStatistics getFilterStatistics() {
+        return new FilterStatistics(filteredLookups.sum(), passedLookups.sum(), falsePositives.sum());
+    }
+
+    /**
+     * Lookup counters of the Bloom filter.
+     *
+     * @param filteredLookups - lookups answered by the filter alone, i.e. definite misses
+     * @param passedLookups   - lookups passed on to the wrapped dictionary
+     * @param falsePositives  - passed lookups for which the wrapped dictionary held no group
+     */
+    public record FilterStatistics(long filteredLookups, long passedLookups, long falsePositives) {
+
+        /**
+         * Returns the observed share of false positives among the lookups of unknown signatures.
+         *
+         * @return the observed false positive rate, 0 if no unknown signature has been looked up yet
+         */
+        public double observedFalsePositiveRate() {
+            long misses = filteredLookups + falsePositives;
+            return misses == 0 ? 0 : (double) falsePositives / misses;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package io.beyonnex.service.dictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The DictionaryRekeyer copies all original strings of one AnagramDictionary into another one, deriving every
+ * signature anew with the given signature function. This is needed whenever the rules producing the signatures
+ * change, e.g. after editing the transformation rules of a mode, as all stored signatures are stale then.
+ * <p>
+ * The original strings are split into chunks that are re-keyed in parallel in a ForkJoinPool. The target dictionary
+ * therefore has to accept concurrent inserts. The source dictionary is only read, so it can keep serving lookups.
+ */
+public class DictionaryRekeyer {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int PROGRESS_STEPS = 100;
+
+    private final int parallelism;
+
+    /**
+     * Creates a rekeyer using one worker thread per available processor.
+     */
+    public DictionaryRekeyer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a rekeyer using the given number of worker threads.
+     *
+     * @param parallelism - the number of worker threads
+     */
+    public DictionaryRekeyer(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Re-keys all original strings of the source dictionary into the target dictionary.
+     *
+     * @param source            - the dictionary holding the original strings
+     * @param target            - the dictionary receiving the re-keyed groups, usually empty
+     * @param signatureFunction - derives the signature of an original string under the current rules
+     * @param progressListener  - receives the progress about every percent and once at the end
+     * @return the figures of the finished rebuild
+     */
+    public Result rekey(AnagramDictionary source, AnagramDictionary target, Function<String, String> signatureFunction,
+                        Consumer<Progress> progressListener) {
+        List<String> originals = new ArrayList<>();
+        source.forEach((signature, group) -> originals.addAll(group));
+
+        long startNanos = System.nanoTime();
+        ProgressTracker tracker = new ProgressTracker(originals.size(), startNanos, progressListener);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RekeyTask(originals, 0, originals.size(), target, signatureFunction, tracker));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        progressListener.accept(tracker.progress(originals.size()));
+        return new Result(originals.size(), target.size(), elapsedNanos / 1_000_000);
+    }
+
+    /**
+     * Progress of a running rebuild.
+     *
+     * @param processed          - the number of original strings re-keyed so far
+     * @param total              - the number of original strings to be re-keyed
+     * @param originalsPerSecond - the average rate since the start of the rebuild
+     */
+    public record Progress(long processed, long total, double originalsPerSecond) {
+    }
+
+    /**
+     * Figures of a finished rebuild.
+     *
+     * @param originals     - the number of original strings re-keyed
+     * @param groups        - the number of groups in the target dictionary
+     * @param elapsedMillis - the time taken by the parallel re-keying
+     */
+    public record Result(long originals, int groups, long elapsedMillis) {
+    }
+
+    private static final class ProgressTracker {
+
+        private final long total;
+        private final long startNanos;
+        private final long reportInterval;
+        private final Consumer<Progress> listener;
+        private final AtomicLong processed = new AtomicLong();
+
+        private ProgressTracker(long total, long startNanos, Consumer<Progress> listener) {
+            this.total = total;
+            this.startNanos = startNanos;
+            this.reportInterval = Math.max(CHUNK_SIZE, total / PROGRESS_STEPS);
+            this.listener = listener;
+        }
+
+        private void advance(int count) {
+            long before = processed.getAndAdd(count);
+            long after = before + count;
+            if (after < total && before / reportInterval != after / reportInterval) {
+                listener.accept(progress(after));
+            }
+        }
+
+        private Progress progress(long processedCount) {
+            double seconds = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+            return new Progress(processedCount, total, processedCount / seconds);
+        }
+    }
+
+    private static final class RekeyTask extends RecursiveAction {
+
+        private final List<String> originals;
+        private final int from;
+        private final int to;
+        private final AnagramDictionary target;
+        private final Function<String, String> signatureFunction;
+        private final ProgressTracker tracker;
+
+        private RekeyTask(List<String> originals, int from, int to, AnagramDictionary target,
+                          Function<String, String> signatureFunction, ProgressTracker tracker) {
+            this.originals = originals;
+            this.from = from;
+            this.to = to;
+            this.target = target;
+            this.signatureFunction = signatureFunction;
+            this.tracker = tracker;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    String original = originals.get(i);
+                    target.add(signatureFunction.apply(original), original);
+                }
+                tracker.advance(to - from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RekeyTask(originals, from, middle, target, signatureFunction, tracker),
+                    new RekeyTask(originals, middle, to, target, signatureFunction, tracker));
+        }
+    }
+}
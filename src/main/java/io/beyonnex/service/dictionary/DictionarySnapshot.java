@@ -0,0 +1,220 @@
+package io.beyonnex.service.dictionary;
+
+import io.beyonnex.service.replacements.ModeType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The DictionarySnapshot writes the content of an AnagramDictionary to a file and reads it back.
+ * <p>
+ * A snapshot starts with a header of magic number and format version, followed by the names of the modes the
+ * signatures were computed under, the Bloom filter if the dictionary has one, and then the groups. Each group is
+ * written as the number of its original strings, its signature and the original strings themselves, where every
+ * string is an int byte count followed by its UTF-8 bytes.
+ * A group size of -1 marks the end of the snapshot. Snapshots of version 1 have no modes.
+ * <p>
+ * A snapshot is written to a temporary file next to the target and moved over it once complete, so a failed write
+ * leaves the previous snapshot intact.
+ */
+public final class DictionarySnapshot {
+
+    private static final int MAGIC = 0x414e4752;
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_MODES = 1;
+    private static final int END_OF_GROUPS = -1;
+
+    private DictionarySnapshot() {
+    }
+
+    /**
+     * Writes all groups of the dictionary to the given file, replacing it if it exists. If the dictionary is a
+     * BloomFilteredAnagramDictionary, also behind decorators like a LazyAnagramDictionary, its filter is written
+     * as well.
+     *
+     * @param dictionary - the dictionary to be written
+     * @param file       - the snapshot file
+     * @throws IOException - if the file cannot be written
+     */
+    public static void write(AnagramDictionary dictionary, Path file) throws IOException {
+        write(dictionary, Set.of(), file);
+    }
+
+    /**
+     * Writes all groups of the dictionary and the modes their signatures were computed under to the given file,
+     * replacing it if it exists. The file is only replaced once the snapshot has been written completely.
+     *
+     * @param dictionary - the dictionary to be written
+     * @param modes      - the active modes of the dictionary's service
+     * @param file       - the snapshot file
+     * @throws IOException - if the file cannot be written
+     */
+    public static void write(AnagramDictionary dictionary, Set<ModeType> modes, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+                 DataOutputStream out =
+                         new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                writeContents(out, dictionary, modes);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads a snapshot into a new InMemoryAnagramDictionary. If the snapshot holds a Bloom filter, the dictionary
+     * is returned wrapped in a BloomFilteredAnagramDictionary using the restored filter.
+     *
+     * @param file - the snapshot file
+     * @return the restored dictionary
+     * @throws IOException - if the file cannot be read or is not a snapshot
+     */
+    public static AnagramDictionary read(Path file) throws IOException {
+        return readContents(file).dictionary();
+    }
+
+    /**
+     * Reads a snapshot from a stream, e.g. a dictionary index packaged as a classpath resource.
+     * The stream is left open, but it may have been read past the end of the snapshot.
+     *
+     * @param input  - the stream holding the snapshot
+     * @param source - the name of the snapshot's source, used in error messages
+     * @return the restored dictionary
+     * @throws IOException - if the stream cannot be read or does not hold a snapshot
+     */
+    public static AnagramDictionary read(InputStream input, String source) throws IOException {
+        return readContents(input, source).dictionary();
+    }
+
+    /**
+     * Reads a snapshot together with the modes its signatures were computed under.
+     *
+     * @param file - the snapshot file
+     * @return the restored dictionary and modes
+     * @throws IOException - if the file cannot be read or is not a snapshot
+     * @see #read(Path)
+     */
+    public static Contents readContents(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return readContents(in, file.toString());
+        }
+    }
+
+    /**
+     * Reads a snapshot from a stream together with the modes its signatures were computed under.
+     * The stream is left open, but it may have been read past the end of the snapshot.
+     *
+     * @param input  - the stream holding the snapshot
+     * @param source - the name of the snapshot's source, used in error messages
+     * @return the restored dictionary and modes
+     * @throws IOException - if the stream cannot be read or does not hold a snapshot
+     * @see #read(InputStream, String)
+     */
+    public static Contents readContents(InputStream input, String source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        int version = in.readInt() == MAGIC ? in.readInt() : -1;
+        if (version != VERSION && version != VERSION_WITHOUT_MODES) {
+            throw new IOException("Not a dictionary snapshot: " + source);
+        }
+        Set<ModeType> modes = EnumSet.noneOf(ModeType.class);
+        int modeCount = version == VERSION ? in.readInt() : 0;
+        for (int i = 0; i < modeCount; i++) {
+            String mode = readString(in);
+            try {
+                modes.add(ModeType.valueOf(mode));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown mode " + mode + " in dictionary snapshot: " + source, e);
+            }
+        }
+        SignatureBloomFilter filter = in.readBoolean() ? SignatureBloomFilter.readFrom(in) : null;
+
+        InMemoryAnagramDictionary dictionary = new InMemoryAnagramDictionary();
+        while (true) {
+            int groupSize = in.readInt();
+            if (groupSize == END_OF_GROUPS) {
+                break;
+            }
+            String signature = readString(in);
+            for (int i = 0; i < groupSize; i++) {
+                dictionary.add(signature, readString(in));
+            }
+        }
+        AnagramDictionary restored = filter == null ? dictionary : new BloomFilteredAnagramDictionary(dictionary, filter);
+        return new Contents(restored, modes);
+    }
+
+    private static void writeContents(DataOutputStream out, AnagramDictionary dictionary, Set<ModeType> modes)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(modes.size());
+        for (ModeType mode : modes) {
+            writeString(out, mode.name());
+        }
+        Optional<BloomFilteredAnagramDictionary> filtered =
+                AnagramDictionary.find(dictionary, BloomFilteredAnagramDictionary.class);
+        out.writeBoolean(filtered.isPresent());
+        if (filtered.isPresent()) {
+            filtered.get().getFilter().writeTo(out);
+        }
+        try {
+            dictionary.forEach((signature, group) -> writeGroup(out, signature, group));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.writeInt(END_OF_GROUPS);
+    }
+
+    private static void writeGroup(DataOutputStream out, String signature, Set<String> group) {
+        try {
+            out.writeInt(group.size());
+            writeString(out, signature);
+            for (String original : group) {
+                writeString(out, original);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The content of a snapshot.
+     *
+     * @param dictionary - the restored dictionary
+     * @param modes      - the modes the signatures of the dictionary were computed under
+     */
+    public record Contents(AnagramDictionary dictionary, Set<ModeType> modes) {
+    }
+}
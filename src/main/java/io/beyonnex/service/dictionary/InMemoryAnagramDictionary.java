@@ -0,0 +1,176 @@
+package io.beyonnex.service.dictionary;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The InMemoryAnagramDictionary keeps all anagram groups on the local heap in a hash map, with the signature as key
+ * and the original strings of the group as value. This is the default dictionary of the AnagramService.
+ * <p>
+ * The map and the groups are concurrent, so a single instance can be shared by several threads, as it is done
+ * by a cluster node serving many connections at once.
+ * <p>
+ * Every original string is stored with the sequence number of its insert. A snapshot only shows the strings inserted
+ * before it was taken, which gives a consistent point-in-time view while inserts continue, without copying the groups.
+ */
+public class InMemoryAnagramDictionary implements AnagramDictionary {
+
+    private final Map<String, Map<String, Long>> anagramDictionary = new ConcurrentHashMap<>();
+    private final AtomicLong insertSequence = new AtomicLong();
+
+    @Override
+    public int add(String signature, String original) {
+        int[] groupSize = new int[1];
+        anagramDictionary.compute(signature, (key, group) -> {
+            Map<String, Long> updated = group != null ? group : new ConcurrentHashMap<>();
+            if (updated.containsKey(original)) {
+                groupSize[0] = 0;
+            } else {
+                updated.put(original, insertSequence.incrementAndGet());
+                groupSize[0] = updated.size();
+            }
+            return updated;
+        });
+        return groupSize[0];
+    }
+
+    @Override
+    public Set<String> get(String signature) {
+        Map<String, Long> group = anagramDictionary.get(signature);
+        return group == null ? Set.of() : Set.copyOf(group.keySet());
+    }
+
+    @Override
+    public int size() {
+        return anagramDictionary.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<String>> action) {
+        anagramDictionary.forEach((signature, group) -> action.accept(signature, Set.copyOf(group.keySet())));
+    }
+
+    @Override
+    public AnagramDictionary newEmpty() {
+        return new InMemoryAnagramDictionary();
+    }
+
+    /**
+     * Returns a read-only view of the groups as they are now. Strings inserted later are not visible in the view.
+     * Groups removed by extractIf disappear from the view as well.
+     */
+    @Override
+    public AnagramDictionary snapshot() {
+        return new SnapshotView(insertSequence.get());
+    }
+
+    /**
+     * Returns the sequence number of the latest insert. Together with groups, this allows to copy the groups first
+     * and the strings inserted meanwhile afterwards.
+     *
+     * @return the sequence number of the latest insert, or 0 if nothing was inserted yet
+     */
+    public long lastInsert() {
+        return insertSequence.get();
+    }
+
+    /**
+     * Returns an iterator over copies of the groups whose signature matches the given predicate and which got a string
+     * inserted after the given sequence number. The groups stay in the dictionary. Like forEach, the iterator is
+     * weakly consistent, so it can be used in pages while inserts continue. This is used to copy groups to another
+     * owner, e.g. when a node joins a cluster, before they are removed with extractIf.
+     *
+     * @param signatureFilter - predicate selecting the signatures to be visited
+     * @param afterInsert     - only groups with a string inserted after this sequence number are visited, 0 for all
+     * @return Iterator<Map.Entry<String, Set<String>>> - the signature and all strings of each selected group
+     */
+    public Iterator<Map.Entry<String, Set<String>>> groups(Predicate<String> signatureFilter, long afterInsert) {
+        return anagramDictionary.entrySet().stream()
+                .filter(group -> signatureFilter.test(group.getKey()))
+                .filter(group -> afterInsert == 0 || group.getValue().values().stream().anyMatch(i -> i > afterInsert))
+                .map(group -> Map.entry(group.getKey(), Set.copyOf(group.getValue().keySet())))
+                .iterator();
+    }
+
+    /**
+     * Removes all groups whose signature matches the given predicate and returns them.
+     * This is used to drop groups that were handed over to another owner, e.g. when a node joins a cluster.
+     *
+     * @param signatureFilter - predicate selecting the signatures to be removed
+     * @return Map<String, Set<String>> - the removed groups by signature
+     */
+    public Map<String, Set<String>> extractIf(Predicate<String> signatureFilter) {
+        Map<String, Set<String>> extracted = new HashMap<>();
+        for (String signature : anagramDictionary.keySet()) {
+            if (signatureFilter.test(signature)) {
+                Map<String, Long> group = anagramDictionary.remove(signature);
+                if (group != null) {
+                    extracted.put(signature, Set.copyOf(group.keySet()));
+                }
+            }
+        }
+        return extracted;
+    }
+
+    /**
+     * A view of the dictionary showing only the strings inserted up to a given sequence number.
+     */
+    private final class SnapshotView implements AnagramDictionary {
+
+        private final long lastVisibleInsert;
+
+        private SnapshotView(long lastVisibleInsert) {
+            this.lastVisibleInsert = lastVisibleInsert;
+        }
+
+        @Override
+        public int add(String signature, String original) {
+            throw new UnsupportedOperationException("A dictionary snapshot is read-only");
+        }
+
+        @Override
+        public Set<String> get(String signature) {
+            Map<String, Long> group = anagramDictionary.get(signature);
+            return group == null ? Set.of() : Set.copyOf(visibleOriginals(group));
+        }
+
+        @Override
+        public int size() {
+            int[] size = new int[1];
+            forEach((signature, group) -> size[0]++);
+            return size[0];
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Set<String>> action) {
+            anagramDictionary.forEach((signature, group) -> {
+                Set<String> visible = visibleOriginals(group);
+                if (!visible.isEmpty()) {
+                    action.accept(signature, visible);
+                }
+            });
+        }
+
+        @Override
+        public AnagramDictionary snapshot() {
+            return this;
+        }
+
+        private Set<String> visibleOriginals(Map<String, Long> group) {
+            Set<String> visible = new HashSet<>();
+            group.forEach((original, insert) -> {
+                if (insert <= lastVisibleInsert) {
+                    visible.add(original);
+                }
+            });
+            return visible;
+        }
+    }
+}
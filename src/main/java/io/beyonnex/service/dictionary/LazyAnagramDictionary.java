@@ -0,0 +1,107 @@
+package io.beyonnex.service.dictionary;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The LazyAnagramDictionary defers loading a dictionary until it is first used, e.g. a prebuilt index packaged
+ * as a classpath resource. Creating a service over it costs nothing, and short-lived processes that never ask
+ * for an anagram never pay for the load.
+ * <p>
+ * The loader runs at most once. If it fails, the exception is passed to the caller and the next use tries again.
+ */
+public class LazyAnagramDictionary implements AnagramDictionary {
+
+    private final Supplier<? extends AnagramDictionary> loader;
+    private volatile AnagramDictionary delegate;
+
+    /**
+     * Creates a dictionary loaded by the given loader on first use.
+     *
+     * @param loader - creates the dictionary, may throw an unchecked exception if it cannot be loaded
+     */
+    public LazyAnagramDictionary(Supplier<? extends AnagramDictionary> loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public int add(String signature, String original) {
+        return getDelegate().add(signature, original);
+    }
+
+    @Override
+    public Set<String> get(String signature) {
+        return getDelegate().get(signature);
+    }
+
+    @Override
+    public Map<String, Set<String>> getAll(Collection<String> signatures) {
+        return getDelegate().getAll(signatures);
+    }
+
+    @Override
+    public int size() {
+        return getDelegate().size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<String>> action) {
+        getDelegate().forEach(action);
+    }
+
+    @Override
+    public AnagramDictionary snapshot() {
+        return getDelegate().snapshot();
+    }
+
+    /**
+     * Returns an empty copy of the loaded dictionary, loading it first if needed.
+     */
+    @Override
+    public AnagramDictionary newEmpty() {
+        return getDelegate().newEmpty();
+    }
+
+    /**
+     * Passes the call on to the loaded dictionary; a dictionary never loaded has nothing to give back.
+     */
+    @Override
+    public void discard() {
+        AnagramDictionary loaded = delegate;
+        if (loaded != null) {
+            loaded.discard();
+        }
+    }
+
+    /**
+     * Returns whether the dictionary has been loaded yet.
+     *
+     * @return true once the loader has completed
+     */
+    public boolean isLoaded() {
+        return delegate != null;
+    }
+
+    /**
+     * Returns the loaded dictionary, loading it first if needed.
+     *
+     * @return the dictionary holding the groups
+     */
+    @Override
+    public AnagramDictionary getDelegate() {
+        AnagramDictionary loaded = delegate;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = delegate;
+                if (loaded == null) {
+                    loaded = loader.get();
+                    delegate = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+}
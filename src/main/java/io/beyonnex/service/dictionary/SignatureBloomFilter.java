@@ -0,0 +1,169 @@
+package io.beyonnex.service.dictionary;
+
+import io.beyonnex.service.error.FindrException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static io.beyonnex.service.error.FindrException.INVALID_BLOOM_FILTER_ERROR;
+
+/**
+ * The SignatureBloomFilter is a blocked Bloom filter over signatures. It answers whether a signature might have been
+ * added, with no false negatives and a configurable rate of false positives.
+ * <p>
+ * All bits of a signature are set within a single block of 512 bits, i.e. one cache line, so a lookup touches one
+ * cache line instead of one per hash function. This costs a slightly higher false positive rate than a classic
+ * Bloom filter of the same size. The bits are kept in an AtomicLongArray, so signatures can be added concurrently.
+ * <p>
+ * The filter is sized for an expected number of signatures; adding more than that raises the false positive rate.
+ */
+public class SignatureBloomFilter {
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * Long.SIZE;
+    private static final int MAX_BLOCK_COUNT = Integer.MAX_VALUE / WORDS_PER_BLOCK;
+    private static final int MAX_HASH_COUNT = 16;
+
+    private final AtomicLongArray words;
+    private final int blockCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the expected number of signatures and the desired false positive rate.
+     *
+     * @param expectedSignatures - the number of signatures expected to be added
+     * @param falsePositiveRate  - the desired false positive rate, between 0 and 1 (exclusive)
+     * @throws FindrException - if the expected number of signatures is not positive or the rate is out of range
+     */
+    public SignatureBloomFilter(long expectedSignatures, double falsePositiveRate) {
+        if (expectedSignatures <= 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new FindrException(INVALID_BLOOM_FILTER_ERROR);
+        }
+        double bits = -expectedSignatures * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.blockCount = (int) Math.max(1, Math.min(MAX_BLOCK_COUNT, Math.ceil(bits / BITS_PER_BLOCK)));
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASH_COUNT,
+                Math.round(bits / expectedSignatures * Math.log(2))));
+        this.words = new AtomicLongArray(blockCount * WORDS_PER_BLOCK);
+    }
+
+    private SignatureBloomFilter(int blockCount, int hashCount, AtomicLongArray words) {
+        this.blockCount = blockCount;
+        this.hashCount = hashCount;
+        this.words = words;
+    }
+
+    /**
+     * Adds a signature to the filter.
+     *
+     * @param signature - the signature to be added
+     */
+    public void put(String signature) {
+        long hash = hash(signature);
+        int blockOffset = blockOffset(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h1 + i * h2) & (BITS_PER_BLOCK - 1);
+            long mask = 1L << bit;
+            int index = blockOffset + (bit >>> 6);
+            if ((words.get(index) & mask) == 0) {
+                words.accumulateAndGet(index, mask, (word, m) -> word | m);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a signature might have been added to the filter.
+     *
+     * @param signature - the signature to be checked
+     * @return false if the signature has definitely not been added, true if it might have been
+     */
+    public boolean mightContain(String signature) {
+        long hash = hash(signature);
+        int blockOffset = blockOffset(hash);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h1 + i * h2) & (BITS_PER_BLOCK - 1);
+            if ((words.get(blockOffset + (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new, empty filter of the same size and number of hash functions as this one.
+     *
+     * @return an empty filter sized like this one
+     */
+    public SignatureBloomFilter newEmpty() {
+        return new SignatureBloomFilter(blockCount, hashCount, new AtomicLongArray(words.length()));
+    }
+
+    /**
+     * Returns the size of the filter in bytes.
+     *
+     * @return the number of bytes taken by the bits of the filter
+     */
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /**
+     * Writes the filter to the given stream.
+     *
+     * @param out - the stream to write to
+     * @throws IOException - if the stream cannot be written
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(blockCount);
+        out.writeInt(hashCount);
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+
+    /**
+     * Reads a filter previously written by writeTo.
+     *
+     * @param in - the stream to read from
+     * @return the restored filter
+     * @throws IOException - if the stream cannot be read or holds a block or hash count the constructor never creates
+     */
+    public static SignatureBloomFilter readFrom(DataInputStream in) throws IOException {
+        int blockCount = in.readInt();
+        int hashCount = in.readInt();
+        if (blockCount < 1 || blockCount > MAX_BLOCK_COUNT || hashCount < 1 || hashCount > MAX_HASH_COUNT) {
+            throw new IOException("Invalid Bloom filter with " + blockCount + " blocks and " + hashCount + " hashes");
+        }
+        AtomicLongArray words = new AtomicLongArray(blockCount * WORDS_PER_BLOCK);
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, in.readLong());
+        }
+        return new SignatureBloomFilter(blockCount, hashCount, words);
+    }
+
+    private int blockOffset(long hash) {
+        return (int) Long.remainderUnsigned(hash * 0x9e3779b97f4a7c15L, blockCount) * WORDS_PER_BLOCK;
+    }
+
+    /**
+     * 64-bit FNV-1a hash over the characters of the signature, finished with the MurmurHash3 mixer.
+     */
+    private static long hash(String signature) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < signature.length(); i++) {
+            h ^= signature.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -8,6 +8,18 @@ package io.beyonnex.service.error;
 public class FindrException extends IllegalArgumentException {
 
     public static final String INVALID_INPUT_ERROR = "Input words must not be null";
+    public static final String INVALID_BLOOM_FILTER_ERROR =
+            "Bloom filter needs a positive number of expected signatures and a false positive rate between 0 and 1";
+    public static final String SHARED_BLOOM_FILTER_ERROR =
+            "A Bloom filter cannot be put in front of a %s, other processes add groups the filter would never see";
+    public static final String TENANT_QUOTA_ERROR = "Tenant '%s' exceeds its memory quota of %d bytes";
+    public static final String TOTAL_QUOTA_ERROR = "Tenant '%s' cannot grow, all tenants together reached %d bytes";
+    public static final String INVALID_TENANT_ERROR = "Tenant id must consist of letters, digits, '-' and '_' only";
+    public static final String INVALID_LOAD_PROFILE_ERROR = "Invalid load profile argument: %s";
+    public static final String MISSING_INDEX_ERROR = "Dictionary index resource %s is not on the classpath";
+    public static final String INVALID_SHARD_COUNT_ERROR = "An export needs at least one shard, got %d";
+    public static final String UNSUPPORTED_REBUILD_ERROR =
+            "A %s cannot create an empty copy of itself, pass the dictionary to rebuild into explicitly";
 
     /**
      * Constructs a new FindrException with the specified detail message.
@@ -0,0 +1,314 @@
+package io.beyonnex.service.export;
+
+import io.beyonnex.service.dictionary.AnagramDictionary;
+import io.beyonnex.service.error.FindrException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.beyonnex.service.error.FindrException.INVALID_SHARD_COUNT_ERROR;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * The AnagramExporter streams all groups of an AnagramDictionary to a channel, for consumption by downstream jobs.
+ * <p>
+ * The groups are taken from a snapshot of the dictionary, so the export is consistent while inserts continue.
+ * They are visited one by one and encoded into a fixed-size direct buffer, which is written out whenever it is full.
+ * Only the current group is held on the heap, and a slow channel holds up the walk over the dictionary instead of
+ * letting encoded groups pile up.
+ * <p>
+ * Dictionaries that cannot take a snapshot, like a ClusterAnagramDictionary, are exported from the live groups:
+ * inserts made during the export may or may not show up in it. A cluster hands out its groups page by page, so
+ * the export still holds only a page of groups on the heap at a time.
+ * <p>
+ * A sharded export writes to several files in parallel, each holding the groups whose signature hashes to its shard.
+ * The dictionary is walked only once; every group is passed to the writer of its shard through a small bounded
+ * queue, so a slow file holds up the walk rather than letting groups pile up.
+ */
+public class AnagramExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SHARD_QUEUE_CAPACITY = 1024;
+    private static final Map.Entry<String, Set<String>> END_OF_GROUPS = Map.entry("", Set.of());
+
+    private final ExportFormat format;
+
+    /**
+     * Creates an exporter writing the given format.
+     *
+     * @param format - the format of the exported groups
+     */
+    public AnagramExporter(ExportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Exports all groups of a snapshot of the dictionary to the channel. The channel is not closed.
+     *
+     * @param dictionary - the dictionary to be exported
+     * @param channel    - the channel to write to
+     * @return the number of groups and bytes written
+     * @throws IOException - if the channel cannot be written
+     */
+    public ExportResult export(AnagramDictionary dictionary, WritableByteChannel channel) throws IOException {
+        return exportGroups(dictionary.snapshot(), channel);
+    }
+
+    /**
+     * Exports all groups of a snapshot of the dictionary into the given number of files, written in parallel.
+     * The files are named {@code <baseName>-<shard>.<extension>} and replaced if they exist.
+     *
+     * @param dictionary - the dictionary to be exported
+     * @param directory  - the directory to write the files to
+     * @param baseName   - the common name of the files
+     * @param shards     - the number of files, at least one
+     * @return the number of groups and bytes written over all files
+     * @throws IOException - if one of the files cannot be written
+     */
+    public ExportResult exportSharded(AnagramDictionary dictionary, Path directory, String baseName, int shards)
+            throws IOException {
+        if (shards <= 0) {
+            throw new FindrException(String.format(INVALID_SHARD_COUNT_ERROR, shards));
+        }
+        AnagramDictionary snapshot = dictionary.snapshot();
+        List<BlockingQueue<Map.Entry<String, Set<String>>>> queues = new ArrayList<>();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(shards);
+        try {
+            List<Future<ExportResult>> results = new ArrayList<>();
+            for (int shard = 0; shard < shards; shard++) {
+                Path file = directory.resolve(shardFileName(baseName, shard));
+                BlockingQueue<Map.Entry<String, Set<String>>> queue = new ArrayBlockingQueue<>(SHARD_QUEUE_CAPACITY);
+                queues.add(queue);
+                results.add(executor.submit(() -> writeShard(queue, file, failure)));
+            }
+
+            try {
+                snapshot.forEach((signature, group) -> {
+                    if (failure.get() != null) {
+                        throw new UncheckedIOException(failure.get());
+                    }
+                    enqueue(queues.get(Math.floorMod(signature.hashCode(), shards)), Map.entry(signature, group));
+                });
+            } catch (UncheckedIOException e) {
+                if (failure.get() == null) {
+                    throw e.getCause();
+                }
+            } finally {
+                for (BlockingQueue<Map.Entry<String, Set<String>>> queue : queues) {
+                    enqueue(queue, END_OF_GROUPS);
+                }
+            }
+
+            ExportResult total = new ExportResult(0, 0);
+            for (Future<ExportResult> result : results) {
+                total = total.plus(result.get());
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the name of the file of a shard.
+     *
+     * @param baseName - the common name of the files
+     * @param shard    - the number of the shard
+     * @return the file name, including the extension of the format
+     */
+    public String shardFileName(String baseName, int shard) {
+        return String.format("%s-%05d.%s", baseName, shard, format.getFileExtension());
+    }
+
+    /**
+     * Writes the groups arriving on the queue to the file of a shard until the end marker arrives. If the file cannot
+     * be written, the failure is reported and the remaining groups are taken off the queue without being written,
+     * so the walk over the dictionary never waits for a writer that has given up.
+     */
+    private ExportResult writeShard(BlockingQueue<Map.Entry<String, Set<String>>> queue, Path file,
+                                    AtomicReference<IOException> failure) throws InterruptedException {
+        GroupWriter writer = null;
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            writer = new GroupWriter(channel);
+            for (Map.Entry<String, Set<String>> group = queue.take(); group != END_OF_GROUPS; group = queue.take()) {
+                writer.write(group.getKey(), group.getValue());
+            }
+            writer.flush();
+            return new ExportResult(writer.groups, writer.bytes);
+        } catch (IOException | UncheckedIOException e) {
+            failure.compareAndSet(null, e instanceof UncheckedIOException unchecked ? unchecked.getCause()
+                    : (IOException) e);
+            while (queue.take() != END_OF_GROUPS) {
+                // discard the groups of the failed shard
+            }
+            return new ExportResult(0, 0);
+        }
+    }
+
+    private static void enqueue(BlockingQueue<Map.Entry<String, Set<String>>> queue,
+                                Map.Entry<String, Set<String>> group) {
+        try {
+            queue.put(group);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Export interrupted", e));
+        }
+    }
+
+    private ExportResult exportGroups(AnagramDictionary snapshot, WritableByteChannel channel) throws IOException {
+        GroupWriter writer = new GroupWriter(channel);
+        try {
+            snapshot.forEach(writer::write);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return new ExportResult(writer.groups, writer.bytes);
+    }
+
+    /**
+     * Number of groups and bytes written by an export.
+     *
+     * @param groups - the number of groups written
+     * @param bytes  - the number of bytes written
+     */
+    public record ExportResult(long groups, long bytes) {
+
+        ExportResult plus(ExportResult other) {
+            return new ExportResult(groups + other.groups, bytes + other.bytes);
+        }
+    }
+
+    /**
+     * Encodes groups into a direct buffer and drains it to the channel whenever it is full.
+     */
+    private final class GroupWriter {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long groups;
+        private long bytes;
+
+        private GroupWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private void write(String signature, Set<String> group) {
+            try {
+                put(format == ExportFormat.NDJSON ? encodeJson(signature, group) : encodeBinary(signature, group));
+                groups++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void put(byte[] record) throws IOException {
+            if (record.length > buffer.remaining()) {
+                flush();
+            }
+            if (record.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(record));
+            } else {
+                buffer.put(record);
+            }
+            bytes += record.length;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    private static byte[] encodeJson(String signature, Set<String> group) {
+        StringBuilder json = new StringBuilder("{\"signature\":");
+        appendJsonString(json, signature);
+        json.append(",\"anagrams\":[");
+        boolean first = true;
+        for (String original : group) {
+            if (!first) {
+                json.append(',');
+            }
+            appendJsonString(json, original);
+            first = false;
+        }
+        json.append("]}\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private static byte[] encodeBinary(String signature, Set<String> group) {
+        byte[] encodedSignature = signature.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> encodedOriginals = new ArrayList<>(group.size());
+        int recordLength = Integer.BYTES + encodedSignature.length + Integer.BYTES;
+        for (String original : group) {
+            byte[] encodedOriginal = original.getBytes(StandardCharsets.UTF_8);
+            encodedOriginals.add(encodedOriginal);
+            recordLength += Integer.BYTES + encodedOriginal.length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + recordLength);
+        record.putInt(recordLength);
+        record.putInt(encodedSignature.length).put(encodedSignature);
+        record.putInt(encodedOriginals.size());
+        for (byte[] encodedOriginal : encodedOriginals) {
+            record.putInt(encodedOriginal.length).put(encodedOriginal);
+        }
+        return record.array();
+    }
+}
@@ -0,0 +1,33 @@
+package io.beyonnex.service.export;
+
+/**
+ * The ExportFormat enum lists the formats anagram groups can be exported in.
+ */
+public enum ExportFormat {
+
+    /**
+     * One JSON object per line: {@code {"signature":"eilv","anagrams":["evil","vile"]}}.
+     */
+    NDJSON("ndjson"),
+
+    /**
+     * One length-prefixed record per group: {@code [int recordLength][string signature][int count][string...]},
+     * where every string is an int byte count followed by its UTF-8 bytes and all ints are big-endian.
+     */
+    BINARY("bin");
+
+    private final String fileExtension;
+
+    ExportFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Returns the extension used for files in this format.
+     *
+     * @return the file extension, without the dot
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -5,6 +5,9 @@ package io.beyonnex.service.replacements;
  * This acts as a factory, each enum value is directly connected with a specific mode implementation,
  * this eliminates the need to call the new keyword within your code, simplifying mode instantiation.
  * <p>
+ * Modes are immutable, so each constant creates its mode once and hands out that shared instance. All services
+ * in a process, e.g. the dictionaries of several tenants, thereby share one set of transformation rule tables.
+ * <p>
  * If a new mode class implementation is created, you should also add a new enum constant here.
  *
  * @see Mode
@@ -17,7 +20,7 @@ public enum ModeType {
      */
     LATIN {
         @Override
-        public Mode getInstance() {
+        Mode createInstance() {
             return new LatinMode();
         }
     },
@@ -27,11 +30,27 @@ public enum ModeType {
      */
     MODERN {
         @Override
-        public Mode getInstance() {
+        Mode createInstance() {
             return new ModernMode();
         }
     };
 
+    private volatile Mode instance;
+
+    /**
+     * Returns the shared instance of the Mode of this constant, creating it on first use.
+     *
+     * @return the shared instance of the Mode implementation
+     */
+    public Mode getInstance() {
+        Mode mode = instance;
+        if (mode == null) {
+            mode = createInstance();
+            instance = mode;
+        }
+        return mode;
+    }
+
     /**
      * Abstract function that is implemented by each enum constant to return a new instance of the correct Mode.
      * This allows for switching between modes with ease and promotes the open-closed principle
@@ -40,5 +59,5 @@ public enum ModeType {
      *
      * @return new instance of Mode implementation
      */
-    public abstract Mode getInstance();
+    abstract Mode createInstance();
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package io.beyonnex.service.statistics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * AnagramStatistics keeps the statistics of an anagram dictionary up to date on every insert, so they never require
+ * a walk over the dictionary: the number of groups and original strings, histograms of signature lengths and group
+ * sizes, and the largest groups.
+ * <p>
+ * The largest groups are held in an indexed min-heap of fixed capacity, with the smallest tracked group at the root
+ * and a map from signature to heap position. Groups only ever grow, so a group that is not tracked is never larger
+ * than the root; a growing group either moves down in the heap or replaces the root. Each update costs O(log K)
+ * for a capacity of K groups.
+ * <p>
+ * All methods are synchronized, as updates are small and frequent and a consistent view is cheap to take.
+ */
+public class AnagramStatistics {
+
+    /**
+     * The number of largest groups tracked by default.
+     */
+    public static final int DEFAULT_TRACKED_GROUPS = 100;
+
+    private final int trackedGroups;
+    private final String[] heapSignatures;
+    private final int[] heapSizes;
+    private final Map<String, Integer> heapPositions = new HashMap<>();
+    private int heapCount;
+
+    private final NavigableMap<Integer, Long> signatureLengths = new TreeMap<>();
+    private final NavigableMap<Integer, Long> groupSizes = new TreeMap<>();
+    private long groups;
+    private long originals;
+
+    /**
+     * Creates empty statistics tracking the given number of largest groups.
+     *
+     * @param trackedGroups - the number of largest groups to be tracked
+     */
+    public AnagramStatistics(int trackedGroups) {
+        this.trackedGroups = trackedGroups;
+        this.heapSignatures = new String[trackedGroups];
+        this.heapSizes = new int[trackedGroups];
+    }
+
+    /**
+     * Records the growth of a group.
+     *
+     * @param signature    - the signature of the group
+     * @param previousSize - the size of the group before, 0 for a new group
+     * @param size         - the size of the group now
+     */
+    public synchronized void record(String signature, int previousSize, int size) {
+        if (size <= previousSize) {
+            return;
+        }
+        if (previousSize == 0) {
+            groups++;
+            signatureLengths.merge(signature.length(), 1L, Long::sum);
+        } else {
+            groupSizes.merge(previousSize, -1L, AnagramStatistics::sumOrRemove);
+        }
+        groupSizes.merge(size, 1L, AnagramStatistics::sumOrRemove);
+        originals += size - previousSize;
+        updateLargestGroups(signature, size);
+    }
+
+    /**
+     * Returns a consistent view of the statistics.
+     *
+     * @param largestGroups - the maximum number of largest groups to be listed
+     * @return the statistics at the time of the call
+     */
+    public synchronized GroupStatistics snapshot(int largestGroups) {
+        List<GroupStatistics.GroupSize> largest = new ArrayList<>(heapCount);
+        for (int i = 0; i < heapCount; i++) {
+            largest.add(new GroupStatistics.GroupSize(heapSignatures[i], heapSizes[i]));
+        }
+        largest.sort(Comparator.comparingInt(GroupStatistics.GroupSize::size).reversed()
+                .thenComparing(GroupStatistics.GroupSize::signature));
+        return new GroupStatistics(groups, originals, List.copyOf(largest.subList(0, Math.min(largestGroups, heapCount))),
+                new TreeMap<>(signatureLengths), new TreeMap<>(groupSizes));
+    }
+
+    private void updateLargestGroups(String signature, int size) {
+        Integer position = heapPositions.get(signature);
+        if (position != null) {
+            if (size > heapSizes[position]) {
+                heapSizes[position] = size;
+                siftDown(position);
+            }
+        } else if (heapCount < trackedGroups) {
+            place(heapCount, signature, size);
+            siftUp(heapCount++);
+        } else if (trackedGroups > 0 && size > heapSizes[0]) {
+            heapPositions.remove(heapSignatures[0]);
+            place(0, signature, size);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Concurrent inserts into the same group may be recorded out of order, so a count can drop below zero
+     * for a moment. The counts are exact again once all updates are recorded.
+     */
+    private static Long sumOrRemove(Long count, Long delta) {
+        long sum = count + delta;
+        return sum == 0 ? null : sum;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapSizes[parent] <= heapSizes[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapCount && heapSizes[left] < heapSizes[smallest]) {
+                smallest = left;
+            }
+            if (right < heapCount && heapSizes[right] < heapSizes[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        String signature = heapSignatures[first];
+        int size = heapSizes[first];
+        place(first, heapSignatures[second], heapSizes[second]);
+        place(second, signature, size);
+    }
+
+    private void place(int position, String signature, int size) {
+        heapSignatures[position] = signature;
+        heapSizes[position] = size;
+        heapPositions.put(signature, position);
+    }
+}
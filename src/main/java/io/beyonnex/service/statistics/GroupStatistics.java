@@ -0,0 +1,61 @@
+package io.beyonnex.service.statistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A point-in-time view of the statistics of an anagram dictionary.
+ *
+ * @param groups           - the number of anagram groups, i.e. distinct signatures
+ * @param originals        - the number of original strings over all groups
+ * @param largestGroups    - the largest groups, largest first
+ * @param signatureLengths - the number of groups per signature length
+ * @param groupSizes       - the number of groups per group size
+ */
+public record GroupStatistics(long groups, long originals, List<GroupSize> largestGroups,
+                              SortedMap<Integer, Long> signatureLengths, SortedMap<Integer, Long> groupSizes) {
+
+    /**
+     * Combines the statistics of dictionaries holding disjoint sets of signatures, e.g. the nodes of a cluster.
+     * As no group is split over several parts, the combined largest groups are exact.
+     *
+     * @param parts         - the statistics of each dictionary
+     * @param largestGroups - the maximum number of largest groups to be listed
+     * @return the statistics of all dictionaries together
+     */
+    public static GroupStatistics merge(Collection<GroupStatistics> parts, int largestGroups) {
+        long groups = 0;
+        long originals = 0;
+        List<GroupSize> largest = new ArrayList<>();
+        SortedMap<Integer, Long> signatureLengths = new TreeMap<>();
+        SortedMap<Integer, Long> groupSizes = new TreeMap<>();
+        for (GroupStatistics part : parts) {
+            groups += part.groups();
+            originals += part.originals();
+            largest.addAll(part.largestGroups());
+            part.signatureLengths().forEach((length, count) -> signatureLengths.merge(length, count, Long::sum));
+            part.groupSizes().forEach((size, count) -> groupSizes.merge(size, count, Long::sum));
+        }
+        largest.sort(Comparator.comparingInt(GroupSize::size).reversed().thenComparing(GroupSize::signature));
+        return new GroupStatistics(groups, originals, List.copyOf(largest.subList(0, Math.min(largestGroups,
+                largest.size()))), signatureLengths, groupSizes);
+    }
+
+    /**
+     * The size of a single anagram group.
+     *
+     * @param signature - the signature of the group
+     * @param size      - the number of original strings in the group
+     */
+    public record GroupSize(String signature, int size) {
+
+        @Override
+        public String toString() {
+            return signature + "=" + size;
+        }
+    }
+}
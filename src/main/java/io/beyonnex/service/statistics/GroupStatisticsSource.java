@@ -0,0 +1,18 @@
+package io.beyonnex.service.statistics;
+
+/**
+ * A GroupStatisticsSource is an AnagramDictionary that keeps the statistics of its groups where the groups are,
+ * e.g. a cluster whose nodes each count their own groups. A StatisticsAnagramDictionary over such a dictionary
+ * asks it for the statistics instead of counting the inserts passing through it, which would miss the inserts of
+ * other processes and require a walk over all groups to start with.
+ */
+public interface GroupStatisticsSource {
+
+    /**
+     * Returns the statistics of all groups of the dictionary.
+     *
+     * @param largestGroups - the maximum number of largest groups to be listed
+     * @return the statistics at the time of the call
+     */
+    GroupStatistics getGroupStatistics(int largestGroups);
+}
@@ -0,0 +1,128 @@
+package io.beyonnex.service.statistics;
+
+import io.beyonnex.service.dictionary.AnagramDictionary;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The StatisticsAnagramDictionary wraps another AnagramDictionary and feeds every insert into AnagramStatistics.
+ * Groups already held by the wrapped dictionary are counted once, before the first insert or statistics request,
+ * so wrapping a lazily loaded dictionary does not load it.
+ * <p>
+ * If the wrapped dictionary keeps statistics itself, i.e. one of its chain is a GroupStatisticsSource like a cluster,
+ * its statistics are passed on instead, and neither the existing groups nor the inserts are counted here.
+ *
+ * @see AnagramStatistics
+ */
+public class StatisticsAnagramDictionary implements AnagramDictionary {
+
+    private final AnagramDictionary delegate;
+    private final AnagramStatistics statistics;
+    private final int trackedGroups;
+    private volatile boolean existingGroupsCounted;
+    private volatile GroupStatisticsSource statisticsSource;
+
+    /**
+     * Wraps the given dictionary, tracking the default number of largest groups.
+     *
+     * @param delegate - the dictionary holding the groups
+     */
+    public StatisticsAnagramDictionary(AnagramDictionary delegate) {
+        this(delegate, AnagramStatistics.DEFAULT_TRACKED_GROUPS);
+    }
+
+    /**
+     * Wraps the given dictionary.
+     *
+     * @param delegate      - the dictionary holding the groups
+     * @param trackedGroups - the number of largest groups to be tracked
+     */
+    public StatisticsAnagramDictionary(AnagramDictionary delegate, int trackedGroups) {
+        this.delegate = delegate;
+        this.statistics = new AnagramStatistics(trackedGroups);
+        this.trackedGroups = trackedGroups;
+    }
+
+    @Override
+    public int add(String signature, String original) {
+        countExistingGroups();
+        int groupSize = delegate.add(signature, original);
+        if (groupSize > 0 && statisticsSource == null) {
+            statistics.record(signature, groupSize - 1, groupSize);
+        }
+        return groupSize;
+    }
+
+    @Override
+    public Set<String> get(String signature) {
+        return delegate.get(signature);
+    }
+
+    @Override
+    public Map<String, Set<String>> getAll(Collection<String> signatures) {
+        return delegate.getAll(signatures);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<String>> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public AnagramDictionary snapshot() {
+        return delegate.snapshot();
+    }
+
+    /**
+     * Returns an empty copy of the wrapped dictionary with new statistics tracking as many largest groups as these.
+     */
+    @Override
+    public AnagramDictionary newEmpty() {
+        return new StatisticsAnagramDictionary(delegate.newEmpty(), trackedGroups);
+    }
+
+    /**
+     * Returns the wrapped dictionary.
+     *
+     * @return the dictionary holding the groups
+     */
+    @Override
+    public AnagramDictionary getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the statistics of the wrapped dictionary.
+     *
+     * @param largestGroups - the maximum number of largest groups to be listed
+     * @return the statistics at the time of the call
+     */
+    public GroupStatistics getStatistics(int largestGroups) {
+        countExistingGroups();
+        GroupStatisticsSource source = statisticsSource;
+        return source != null ? source.getGroupStatistics(largestGroups) : statistics.snapshot(largestGroups);
+    }
+
+    private void countExistingGroups() {
+        if (existingGroupsCounted) {
+            return;
+        }
+        synchronized (this) {
+            if (!existingGroupsCounted) {
+                statisticsSource = AnagramDictionary.find(delegate, GroupStatisticsSource.class).orElse(null);
+                if (statisticsSource == null) {
+                    delegate.forEach((signature, group) -> statistics.record(signature, 0, group.size()));
+                }
+                existingGroupsCounted = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.beyonnex.service.tenant;
+
+import io.beyonnex.service.dictionary.AnagramDictionary;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * The QuotaAnagramDictionary wraps the dictionary of a tenant and charges the estimated footprint of every insert
+ * to the tenant before it is made. Inserts that would exceed a quota are rejected by the TenantRegistry.
+ * <p>
+ * The footprint is estimated from the lengths of the stored strings plus a fixed overhead per string and per group,
+ * assuming compressed object pointers and compact (Latin-1) strings.
+ * <p>
+ * Each instance remembers what it charged, so a dictionary replaced by a rebuild gives its share back once it is
+ * discarded. A rebuild therefore needs room for a second copy of the groups within the tenant's quota.
+ */
+class QuotaAnagramDictionary implements AnagramDictionary {
+
+    private static final long STRING_OVERHEAD = 40;
+    private static final long ORIGINAL_OVERHEAD = 48;
+    private static final long GROUP_OVERHEAD = 96;
+
+    private final AnagramDictionary delegate;
+    private final TenantRegistry registry;
+    private final TenantRegistry.Tenant tenant;
+    private final AtomicLong charged;
+    private volatile boolean discarded;
+
+    /**
+     * Creates the quota dictionary of a tenant.
+     *
+     * @param delegate - the dictionary holding the groups
+     * @param registry - the registry enforcing the quotas
+     * @param tenant   - the tenant charged for the inserts
+     * @param charged  - the footprint of the groups already held by the delegate, which has been charged already
+     */
+    QuotaAnagramDictionary(AnagramDictionary delegate, TenantRegistry registry, TenantRegistry.Tenant tenant,
+                           long charged) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.tenant = tenant;
+        this.charged = new AtomicLong(charged);
+    }
+
+    /**
+     * Reserves the footprint of a new group before the insert and gives back what was not needed afterwards,
+     * i.e. everything for a duplicate and the group overhead for an existing group.
+     */
+    @Override
+    public int add(String signature, String original) {
+        long groupBytes = estimateGroup(signature);
+        long originalBytes = estimateOriginal(original);
+        registry.reserve(tenant, groupBytes + originalBytes);
+
+        int groupSize = 0;
+        try {
+            groupSize = delegate.add(signature, original);
+        } finally {
+            long unused = groupSize == 0 ? groupBytes + originalBytes : groupSize == 1 ? 0 : groupBytes;
+            registry.release(tenant, unused);
+            charged.addAndGet(groupBytes + originalBytes - unused);
+            if (discarded) {
+                registry.release(tenant, charged.getAndSet(0));
+            }
+        }
+        return groupSize;
+    }
+
+    @Override
+    public Set<String> get(String signature) {
+        return delegate.get(signature);
+    }
+
+    @Override
+    public Map<String, Set<String>> getAll(Collection<String> signatures) {
+        return delegate.getAll(signatures);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, Set<String>> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public AnagramDictionary snapshot() {
+        return delegate.snapshot();
+    }
+
+    /**
+     * Returns an empty copy of the wrapped dictionary, charging the same tenant.
+     */
+    @Override
+    public AnagramDictionary newEmpty() {
+        return new QuotaAnagramDictionary(delegate.newEmpty(), registry, tenant, 0);
+    }
+
+    /**
+     * Gives the footprint charged by this dictionary back to the tenant. An insert still running into the discarded
+     * dictionary, e.g. one that raced a rebuild's swap, gives its share back when it finishes.
+     */
+    @Override
+    public void discard() {
+        discarded = true;
+        registry.release(tenant, charged.getAndSet(0));
+        delegate.discard();
+    }
+
+    @Override
+    public AnagramDictionary getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Estimates the footprint of a whole dictionary, e.g. one just loaded from a snapshot.
+     */
+    static long estimate(AnagramDictionary dictionary) {
+        long[] bytes = new long[1];
+        dictionary.forEach((signature, group) -> {
+            bytes[0] += estimateGroup(signature);
+            group.forEach(original -> bytes[0] += estimateOriginal(original));
+        });
+        return bytes[0];
+    }
+
+    private static long estimateGroup(String signature) {
+        return GROUP_OVERHEAD + STRING_OVERHEAD + signature.length();
+    }
+
+    private static long estimateOriginal(String original) {
+        return ORIGINAL_OVERHEAD + STRING_OVERHEAD + original.length();
+    }
+}
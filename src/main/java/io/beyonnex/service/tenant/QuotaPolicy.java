@@ -0,0 +1,19 @@
+package io.beyonnex.service.tenant;
+
+/**
+ * The QuotaPolicy enum decides what happens when an insert would exceed the memory budget shared by all tenants.
+ * The quota of a single tenant is always enforced by rejecting the insert.
+ */
+public enum QuotaPolicy {
+
+    /**
+     * The insert is rejected.
+     */
+    REJECT,
+
+    /**
+     * Idle tenants are unloaded to their snapshots, least recently used first, until the insert fits.
+     * The insert is only rejected if unloading all idle tenants does not free enough memory.
+     */
+    EVICT_IDLE_TENANTS
+}
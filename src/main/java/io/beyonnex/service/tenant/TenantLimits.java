@@ -0,0 +1,14 @@
+package io.beyonnex.service.tenant;
+
+import java.time.Duration;
+
+/**
+ * The memory limits of a TenantRegistry.
+ *
+ * @param bytesPerTenant - the estimated footprint a single tenant's dictionary may reach
+ * @param totalBytes     - the estimated footprint all loaded tenants together may reach
+ * @param policy         - what to do when the total would be exceeded
+ * @param idleTimeout    - the time after its last use after which a tenant is unloaded
+ */
+public record TenantLimits(long bytesPerTenant, long totalBytes, QuotaPolicy policy, Duration idleTimeout) {
+}
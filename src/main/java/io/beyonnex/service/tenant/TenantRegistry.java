@@ -0,0 +1,382 @@
+package io.beyonnex.service.tenant;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.dictionary.DictionarySnapshot;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.error.FindrException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static io.beyonnex.service.error.FindrException.INVALID_TENANT_ERROR;
+import static io.beyonnex.service.error.FindrException.TENANT_QUOTA_ERROR;
+import static io.beyonnex.service.error.FindrException.TOTAL_QUOTA_ERROR;
+
+/**
+ * The TenantRegistry hosts the isolated anagram dictionaries of many tenants in a single process. Every tenant has
+ * its own AnagramService with its own dictionary and active modes, while the signature computation and the mode
+ * instances are shared by all of them.
+ * <p>
+ * Tenants are loaded lazily from their snapshot in the snapshot directory on first use, and written back and unloaded
+ * once they have been idle for the configured time. The snapshot also holds the tenant's active modes, so a tenant
+ * comes back with them, even after a restart. The estimated footprint of every tenant is tracked on each insert;
+ * inserts exceeding the quota of the tenant are rejected, and inserts exceeding the budget of all tenants together are
+ * handled according to the QuotaPolicy.
+ * <p>
+ * A tenant's service may only be used within withTenant, which keeps the tenant loaded while the work is running.
+ * <p>
+ * There is no registry-wide lock. Loading and unloading a tenant, including its snapshot I/O, only holds the lock of
+ * that tenant, and the footprints are reserved with compare-and-set, so work on other tenants is never blocked by it.
+ * Idle tenants are only unloaded if their lock is free, i.e. they are not being loaded or unloaded by another thread.
+ */
+public class TenantRegistry implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TenantRegistry.class);
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]+");
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+    private final Path snapshotDirectory;
+    private final TenantLimits limits;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong totalFootprint = new AtomicLong();
+    private final ScheduledExecutorService idleSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tenant-idle-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a registry keeping the snapshots of unloaded tenants in the given directory.
+     * Idle tenants are unloaded in the background, checked every half idle timeout.
+     *
+     * @param snapshotDirectory - the directory holding one snapshot file per tenant
+     * @param limits            - the memory quotas and the idle timeout
+     */
+    public TenantRegistry(Path snapshotDirectory, TenantLimits limits) {
+        this.snapshotDirectory = snapshotDirectory;
+        this.limits = limits;
+        long sweepMillis = Math.max(1, limits.idleTimeout().toMillis() / 2);
+        idleSweeper.scheduleWithFixedDelay(this::unloadIdleTenantsQuietly, sweepMillis, sweepMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the given work on the service of a tenant, loading the tenant first if needed.
+     * The tenant is not unloaded while the work is running.
+     *
+     * @param tenantId - the id of the tenant, consisting of letters, digits, '-' and '_'
+     * @param work     - the work to be done with the tenant's service
+     * @param <T>      - the result type of the work
+     * @return the result of the work
+     * @throws FindrException       - if the tenant id is invalid, the snapshot of the tenant does not fit into the
+     *                              quotas, or an insert exceeds a quota
+     * @throws UncheckedIOException - if the snapshot of the tenant cannot be read
+     */
+    public <T> T withTenant(String tenantId, Function<AnagramService, T> work) {
+        Tenant tenant = acquire(tenantId);
+        try {
+            return work.apply(tenant.service);
+        } finally {
+            release(tenant);
+        }
+    }
+
+    /**
+     * Returns the estimated footprint of a loaded tenant.
+     *
+     * @param tenantId - the id of the tenant
+     * @return the estimated footprint in bytes, 0 if the tenant is not loaded
+     */
+    public long getFootprint(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        return tenant == null ? 0 : tenant.footprint.get();
+    }
+
+    /**
+     * Returns the estimated footprint of all loaded tenants together.
+     *
+     * @return the estimated footprint in bytes
+     */
+    public long getTotalFootprint() {
+        return totalFootprint.get();
+    }
+
+    /**
+     * Returns the ids of the tenants currently loaded.
+     *
+     * @return the ids of the loaded tenants
+     */
+    public Set<String> getLoadedTenants() {
+        return tenants.values().stream()
+                .filter(tenant -> tenant.state == State.LOADED)
+                .map(tenant -> tenant.id)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Writes every tenant that has been idle for longer than the idle timeout to its snapshot and unloads it.
+     * Tenants being loaded or unloaded by another thread are skipped.
+     *
+     * @return the number of unloaded tenants
+     * @throws UncheckedIOException - if a snapshot cannot be written
+     */
+    public int unloadIdleTenants() {
+        long idleSince = System.nanoTime() - limits.idleTimeout().toNanos();
+        int unloaded = 0;
+        for (Tenant tenant : List.copyOf(tenants.values())) {
+            if (tryUnload(tenant, idle -> idle.users.get() == 0 && idle.lastUsedNanos - idleSince < 0)) {
+                unloaded++;
+            }
+        }
+        return unloaded;
+    }
+
+    /**
+     * Stops the background unloading and writes all tenants to their snapshots.
+     */
+    @Override
+    public void close() {
+        idleSweeper.shutdownNow();
+        for (Tenant tenant : List.copyOf(tenants.values())) {
+            tenant.lock.lock();
+            try {
+                if (tenant.state == State.LOADED) {
+                    unload(tenant);
+                }
+            } finally {
+                tenant.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Reserves memory for an insert into the dictionary of the tenant, or for the tenant's snapshot while it is
+     * loaded. Under the EVICT_IDLE_TENANTS policy, idle tenants are unloaded until the total budget is met.
+     *
+     * @throws FindrException - if the insert would exceed the quota of the tenant, or the budget of all tenants
+     *                        could not be met
+     */
+    void reserve(Tenant tenant, long bytes) {
+        long footprint;
+        do {
+            footprint = tenant.footprint.get();
+            if (footprint + bytes > limits.bytesPerTenant()) {
+                throw new FindrException(String.format(TENANT_QUOTA_ERROR, tenant.id, limits.bytesPerTenant()));
+            }
+        } while (!tenant.footprint.compareAndSet(footprint, footprint + bytes));
+
+        try {
+            reserveTotal(tenant, bytes);
+        } catch (RuntimeException e) {
+            tenant.footprint.addAndGet(-bytes);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back memory reserved for an insert but not needed by it.
+     */
+    void release(Tenant tenant, long bytes) {
+        tenant.footprint.addAndGet(-bytes);
+        totalFootprint.addAndGet(-bytes);
+    }
+
+    private void reserveTotal(Tenant tenant, long bytes) {
+        while (true) {
+            long total = totalFootprint.get();
+            if (total + bytes <= limits.totalBytes()) {
+                if (totalFootprint.compareAndSet(total, total + bytes)) {
+                    return;
+                }
+            } else if (limits.policy() != QuotaPolicy.EVICT_IDLE_TENANTS
+                    || !evictIdleTenants(tenant, total + bytes - limits.totalBytes())) {
+                throw new FindrException(String.format(TOTAL_QUOTA_ERROR, tenant.id, limits.totalBytes()));
+            }
+        }
+    }
+
+    private Tenant acquire(String tenantId) {
+        if (tenantId == null || !TENANT_ID.matcher(tenantId).matches()) {
+            throw new FindrException(INVALID_TENANT_ERROR);
+        }
+        while (true) {
+            Tenant tenant = tenants.computeIfAbsent(tenantId, Tenant::new);
+            tenant.lock.lock();
+            try {
+                if (tenant.state == State.LOADING) {
+                    load(tenant);
+                }
+                if (tenant.state == State.LOADED) {
+                    tenant.users.incrementAndGet();
+                    tenant.lastUsedNanos = System.nanoTime();
+                    return tenant;
+                }
+            } finally {
+                tenant.lock.unlock();
+            }
+            // unloaded while waiting for its lock, the next round finds or creates its successor
+        }
+    }
+
+    private void release(Tenant tenant) {
+        tenant.lastUsedNanos = System.nanoTime();
+        tenant.users.decrementAndGet();
+    }
+
+    /**
+     * Reads the snapshot of a tenant and reserves its footprint. If the snapshot cannot be read or does not fit,
+     * the tenant is dropped from the registry again. Must be called holding the tenant's lock.
+     */
+    private void load(Tenant tenant) {
+        try {
+            DictionarySnapshot.Contents snapshot = readSnapshot(tenant.id);
+            long footprint = QuotaAnagramDictionary.estimate(snapshot.dictionary());
+            reserve(tenant, footprint);
+
+            tenant.service = new AnagramService(
+                    new QuotaAnagramDictionary(snapshot.dictionary(), this, tenant, footprint));
+            snapshot.modes().forEach(tenant.service::activateMode);
+            tenant.state = State.LOADED;
+            LOGGER.info("Loaded tenant {} with an estimated footprint of {} bytes", tenant.id, footprint);
+        } catch (RuntimeException e) {
+            tenant.state = State.UNLOADED;
+            tenants.remove(tenant.id, tenant);
+            throw e;
+        }
+    }
+
+    private DictionarySnapshot.Contents readSnapshot(String tenantId) {
+        Path snapshot = snapshotOf(tenantId);
+        if (!Files.exists(snapshot)) {
+            return new DictionarySnapshot.Contents(new InMemoryAnagramDictionary(), Set.of());
+        }
+        try {
+            return DictionarySnapshot.readContents(snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load tenant " + tenantId, e);
+        }
+    }
+
+    /**
+     * Unloads the tenant if its lock is free and it is loaded and unused according to the given condition.
+     *
+     * @return true if the tenant was unloaded
+     */
+    private boolean tryUnload(Tenant tenant, Predicate<Tenant> unused) {
+        if (!tenant.lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (tenant.state != State.LOADED || !unused.test(tenant)) {
+                return false;
+            }
+            unload(tenant);
+            return true;
+        } finally {
+            tenant.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a loaded tenant to its snapshot and drops it from the registry. If the snapshot cannot be written, the
+     * tenant stays loaded and its previous snapshot is left intact. Must be called holding the tenant's lock.
+     */
+    private void unload(Tenant tenant) {
+        tenant.state = State.UNLOADING;
+        try {
+            Files.createDirectories(snapshotDirectory);
+            tenant.service.saveSnapshot(snapshotOf(tenant.id));
+        } catch (IOException e) {
+            tenant.state = State.LOADED;
+            throw new UncheckedIOException("Failed to unload tenant " + tenant.id, e);
+        }
+        tenant.state = State.UNLOADED;
+        tenants.remove(tenant.id, tenant);
+        long footprint = tenant.footprint.getAndSet(0);
+        totalFootprint.addAndGet(-footprint);
+        LOGGER.info("Unloaded tenant {}, freeing an estimated {} bytes", tenant.id, footprint);
+    }
+
+    /**
+     * Unloads idle tenants other than the requester, least recently used first, until the needed bytes are freed.
+     *
+     * @return true if at least one tenant was unloaded
+     */
+    private boolean evictIdleTenants(Tenant requester, long bytesNeeded) {
+        List<Tenant> candidates = tenants.values().stream()
+                .filter(tenant -> tenant != requester && tenant.state == State.LOADED && tenant.users.get() == 0)
+                .sorted(Comparator.comparingLong((Tenant tenant) -> tenant.lastUsedNanos))
+                .toList();
+        long freed = 0;
+        boolean evicted = false;
+        for (Tenant tenant : candidates) {
+            if (freed >= bytesNeeded) {
+                break;
+            }
+            long footprint = tenant.footprint.get();
+            if (tryUnload(tenant, idle -> idle.users.get() == 0)) {
+                freed += footprint;
+                evicted = true;
+            }
+        }
+        return evicted;
+    }
+
+    private void unloadIdleTenantsQuietly() {
+        try {
+            unloadIdleTenants();
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to unload idle tenants: {}", e.getMessage());
+        }
+    }
+
+    private Path snapshotOf(String tenantId) {
+        return snapshotDirectory.resolve(tenantId + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * The stages of a tenant's life in the registry. A tenant is registered as LOADING and only used once LOADED;
+     * an UNLOADED tenant has been dropped from the registry, and the next use registers a new one.
+     */
+    private enum State {
+        LOADING, LOADED, UNLOADING, UNLOADED
+    }
+
+    /**
+     * The state of a tenant. Loading and unloading are guarded by the tenant's lock; the user count is taken under
+     * the lock, so a tenant in use is never unloaded, but given back without it.
+     */
+    static final class Tenant {
+
+        private final String id;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicLong footprint = new AtomicLong();
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile State state = State.LOADING;
+        private volatile AnagramService service;
+        private volatile long lastUsedNanos;
+
+        private Tenant(String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.beyonnex.faststart;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.dictionary.DictionarySnapshot;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.dictionary.LazyAnagramDictionary;
+import io.beyonnex.service.error.FindrException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DictionaryIndexBuilderTest {
+
+    @Test
+    public void testIndex_isLoadedOnFirstUse() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-index");
+        Path wordList = directory.resolve("words.txt");
+        Path index = directory.resolve("index.bin");
+        try {
+            Files.write(wordList, List.of("# seed words", "listen", "silent", "", "  Dirty room ", "dormitory", "evil"));
+            DictionaryIndexBuilder.main(new String[]{wordList.toString(), index.toString()});
+
+            LazyAnagramDictionary dictionary = new LazyAnagramDictionary(() -> {
+                try {
+                    return DictionarySnapshot.read(index);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            AnagramService anagramService = new AnagramService(dictionary);
+            assertThat(dictionary.isLoaded()).isFalse();
+
+            assertThat(anagramService.getAnagrams("listen")).containsOnly("silent");
+            assertThat(dictionary.isLoaded()).isTrue();
+            assertThat(anagramService.getAnagrams("dormitory")).containsOnly("Dirty room");
+            assertThat(anagramService.getAnagrams("vile")).containsOnly("evil");
+            assertThat(anagramService.getAnagrams("seed")).isEmpty();
+            assertThat(anagramService.getStatistics(10).originals()).isEqualTo(5L);
+        } finally {
+            Files.deleteIfExists(index);
+            Files.deleteIfExists(wordList);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testStatistics_countIndexedGroupsBeforeTheFirstInsert() {
+        LazyAnagramDictionary dictionary = new LazyAnagramDictionary(() -> {
+            InMemoryAnagramDictionary indexed = new InMemoryAnagramDictionary();
+            indexed.add("eilv", "evil");
+            indexed.add("eilv", "vile");
+            return indexed;
+        });
+        AnagramService anagramService = new AnagramService(dictionary);
+
+        anagramService.areAnagrams("live", "silent");
+
+        assertThat(anagramService.getStatistics(10).groups()).isEqualTo(2L);
+        assertThat(anagramService.getStatistics(10).originals()).isEqualTo(4L);
+    }
+
+    @Test
+    public void testIndexResource_mustBeOnTheClasspath() {
+        assertThrows(FindrException.class, () -> AnagramService.fromIndexResource("/no-such-index.bin"));
+    }
+}
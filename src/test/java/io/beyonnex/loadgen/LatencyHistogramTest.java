@@ -0,0 +1,90 @@
+package io.beyonnex.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void testPercentiles_keepThreeSignificantDigits() {
+        LatencyHistogram histogram = new LatencyHistogram(ONE_MINUTE);
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertThat(histogram.getTotalCount()).isEqualTo(1_000_000L);
+        assertThat(histogram.getMinValue()).isEqualTo(1_000L);
+        assertThat(histogram.getMaxValue()).isEqualTo(1_000_000_000L);
+        assertThat(histogram.getMean()).isGreaterThan(500_000_000 * 0.999);
+        assertThat(histogram.getMean()).isLessThan(500_000_000 * 1.001);
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(500_000_000L, 500_500_000L);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(990_000_000L, 991_000_000L);
+        assertThat(histogram.getValueAtPercentile(99.99)).isBetween(999_900_000L, 1_000_000_000L);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1_000_000_000L);
+    }
+
+    @Test
+    public void testSmallValues_areRecordedExactly() {
+        LatencyHistogram histogram = new LatencyHistogram(ONE_MINUTE);
+        histogram.record(7);
+        histogram.record(2_047);
+        histogram.record(-5);
+
+        assertThat(histogram.getValueAtPercentile(0)).isEqualTo(0L);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(7L);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(2_047L);
+    }
+
+    @Test
+    public void testValuesAboveTheTrackableRange_areClamped() {
+        LatencyHistogram histogram = new LatencyHistogram(ONE_MINUTE);
+        histogram.record(ONE_MINUTE * 10);
+
+        assertThat(histogram.getMaxValue()).isEqualTo(ONE_MINUTE);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(ONE_MINUTE);
+    }
+
+    @Test
+    public void testAdd_mergesHistogramsAndResetEmptiesThem() {
+        LatencyHistogram first = new LatencyHistogram(ONE_MINUTE);
+        LatencyHistogram second = new LatencyHistogram(ONE_MINUTE);
+        for (int i = 0; i < 90; i++) {
+            first.record(1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            second.record(5_000_000);
+        }
+
+        first.add(second);
+        second.reset();
+
+        assertThat(first.getTotalCount()).isEqualTo(100L);
+        assertThat(first.getValueAtPercentile(90)).isEqualTo(1_000L);
+        assertThat(first.getValueAtPercentile(91)).isEqualTo(5_000_000L);
+        assertThat(second.getTotalCount()).isEqualTo(0L);
+        assertThat(second.getMaxValue()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testPercentileDistribution_endsWithTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram(ONE_MINUTE);
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        StringWriter out = new StringWriter();
+        histogram.writePercentileDistribution(new PrintWriter(out), 1_000);
+
+        String distribution = out.toString();
+        assertThat(distribution).contains("Value", "Percentile", "1/(1-Percentile)");
+        assertThat(distribution).contains("10000.000 1.000000000000      10000");
+        assertThat(distribution).contains("#[Max     =    10000.000, Total count    =        10000]");
+    }
+}
@@ -0,0 +1,93 @@
+package io.beyonnex.loadgen;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.error.FindrException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void testCorpus_groupsHoldAnagramsOnly() {
+        AnagramService anagramService = new AnagramService();
+        List<List<String>> corpus = new CorpusGenerator(new SplittableRandom(7)).generate(1_000);
+
+        assertThat(corpus).hasSize(1_000);
+        assertThat(corpus.stream().filter(group -> group.size() > 1).count()).isGreaterThan(300L);
+        for (List<String> group : corpus) {
+            for (String word : group) {
+                assertThat(anagramService.areAnagrams(group.getFirst(), word)).isTrue();
+            }
+        }
+        assertThat(new CorpusGenerator(new SplittableRandom(7)).generate(1_000)).isEqualTo(corpus);
+    }
+
+    @Test
+    public void testZipf_favoursLowRanks() {
+        ZipfDistribution distribution = new ZipfDistribution(1_000, 1.0);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[1_000];
+        for (int i = 0; i < 100_000; i++) {
+            counts[distribution.sample(random)]++;
+        }
+
+        assertThat(counts[0]).isGreaterThan(counts[1]);
+        assertThat(counts[1]).isGreaterThan(counts[9]);
+        assertThat((long) counts[0]).isBetween(12_500L, 15_500L);
+    }
+
+    @Test
+    public void testRun_writesIntervalsAndDistributions() throws IOException, InterruptedException {
+        Path report = Files.createTempFile("load-report", ".txt");
+        try {
+            LoadProfile profile = LoadProfile.parse("threads=2", "rate=2000", "duration=2", "warmup=1", "interval=1",
+                    "toggleRatio=0.01", "groups=2000", "report=" + report);
+
+            LoadGenerator.LoadResult result = new LoadGenerator(profile).run();
+
+            assertThat(result.errors()).isEqualTo(0L);
+            assertThat(result.responseTimes().getTotalCount()).isBetween(1_500L, 2_100L);
+            assertThat(result.responseTimes().getValueAtPercentile(50))
+                    .isGreaterThanOrEqualTo(result.serviceTimes().getValueAtPercentile(50));
+            List<String> lines = Files.readAllLines(report);
+            assertThat(lines.stream().filter(line -> line.contains(",warmup,")).count()).isEqualTo(1L);
+            assertThat(lines.stream().filter(line -> line.contains(",measure,")).count()).isEqualTo(1L);
+            assertThat(lines).contains("# Response time distribution (us)", "# Service time distribution (us)");
+        } finally {
+            Files.delete(report);
+        }
+    }
+
+    @Test
+    public void testRun_measuresNothingOfTheWarmup() throws IOException, InterruptedException {
+        Path report = Files.createTempFile("load-report", ".txt");
+        try {
+            LoadProfile profile = LoadProfile.parse("threads=2", "rate=2000", "duration=3", "warmup=1", "interval=2",
+                    "toggleRatio=0.01", "groups=2000", "report=" + report);
+
+            LoadGenerator.LoadResult result = new LoadGenerator(profile).run();
+
+            assertThat(result.responseTimes().getTotalCount()).isBetween(3_500L, 4_100L);
+            List<String> lines = Files.readAllLines(report);
+            assertThat(lines.stream().filter(line -> line.contains(",warmup,")).count()).isEqualTo(1L);
+            assertThat(lines.stream().filter(line -> line.contains(",measure,")).count()).isEqualTo(1L);
+        } finally {
+            Files.delete(report);
+        }
+    }
+
+    @Test
+    public void testProfile_rejectsUnknownArguments() {
+        assertThrows(FindrException.class, () -> LoadProfile.parse("speed=fast"));
+        assertThrows(FindrException.class, () -> LoadProfile.parse("rate=many"));
+        assertThrows(FindrException.class, () -> LoadProfile.parse("duration=10", "warmup=10"));
+    }
+}
@@ -1,8 +1,13 @@
 package io.beyonnex.service;
 
+import io.beyonnex.service.dictionary.BloomFilteredAnagramDictionary;
+import io.beyonnex.service.dictionary.DictionaryRekeyer;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
 import io.beyonnex.service.error.FindrException;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import static io.beyonnex.service.error.FindrException.INVALID_INPUT_ERROR;
@@ -139,6 +144,26 @@ public class AnagramServiceTest {
         assertThat(anagramService.areAnagrams("wuhuw", "vvvhvvv")).isTrue();
     }
 
+    @Test
+    public void testModes_areAppliedInTheSameOrderWhateverTheActivationOrder() {
+        AnagramService latinFirst = new AnagramService();
+        latinFirst.activateMode(LATIN);
+        latinFirst.activateMode(MODERN);
+        AnagramService modernFirst = new AnagramService();
+        modernFirst.activateMode(MODERN);
+        modernFirst.activateMode(LATIN);
+
+        for (AnagramService anagramService : List.of(latinFirst, modernFirst)) {
+            anagramService.addWord("uw");
+            anagramService.rebuildSignatures(progress -> {
+            });
+
+            assertThat(anagramService.areAnagrams("uw", "vw")).isTrue();
+            assertThat(anagramService.getAnagrams("wu")).containsOnly("uw", "vw");
+            assertThat(anagramService.getActiveModes()).containsExactly(LATIN, MODERN);
+        }
+    }
+
     @Test
     public void testAreAnagrams_differentWhenModernModeIsApplied() {
         AnagramService anagramService = new AnagramService();
@@ -228,6 +253,17 @@ public class AnagramServiceTest {
         assertThat(anagramService.areAnagrams("notempty", "")).isFalse();
     }
 
+    @Test
+    public void testAddWord_makesTheWordAKnownAnagram() {
+        AnagramService anagramService = new AnagramService();
+
+        anagramService.addWord("evil");
+        anagramService.addWord("Vile");
+
+        assertThat(anagramService.getAnagrams("live")).containsOnly("evil", "Vile");
+        assertThrows(FindrException.class, () -> anagramService.addWord(null), INVALID_INPUT_ERROR);
+    }
+
     @Test
     public void testGetAnagrams_EmptyResultForNonExistenceWord() {
         AnagramService anagramService = new AnagramService();
@@ -235,4 +271,80 @@ public class AnagramServiceTest {
         assertThat(anagramService.getAnagrams("nonexistenceword")).isEmpty();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRebuildSignatures_rekeysKnownStringsUnderActiveModes() {
+        AnagramService anagramService = new AnagramService();
+
+        assertThat(anagramService.areAnagrams("wccc", "vkkk")).isFalse();
+        anagramService.activateMode(MODERN);
+        assertThat(anagramService.getAnagrams("wccc")).isEmpty();
+
+        List<DictionaryRekeyer.Progress> progress = new ArrayList<>();
+        DictionaryRekeyer.Result result = anagramService.rebuildSignatures(progress::add);
+
+        assertThat(result.originals()).isEqualTo(2);
+        assertThat(result.groups()).isEqualTo(1);
+        assertThat(progress).isNotEmpty();
+        assertThat(anagramService.getAnagrams("wccc")).containsOnly("vkkk");
+    }
+
+    @Test
+    public void testRebuildSignatures_keepsStringsInsertedDuringTheRebuild() {
+        AnagramService anagramService = new AnagramService();
+        for (int i = 0; i < 5000; i++) {
+            anagramService.areAnagrams("a".repeat(i + 1) + "b", "b" + "a".repeat(i + 1));
+        }
+
+        anagramService.rebuildSignatures(progress -> anagramService.areAnagrams("evil", "vile"));
+
+        assertThat(anagramService.getAnagrams("evil")).containsOnly("vile");
+        assertThat(anagramService.getAnagrams("ab")).containsOnly("ba");
+    }
+
+    @Test
+    public void testRebuildSignatures_keepsStringsInsertedDuringRepeatedRebuilds() throws InterruptedException {
+        AnagramService anagramService = new AnagramService();
+        int words = 20_000;
+        Thread inserter = new Thread(() -> {
+            for (int i = 0; i < words; i++) {
+                anagramService.areAnagrams(letters(i) + "ab", letters(i) + "ba");
+            }
+        });
+
+        inserter.start();
+        while (inserter.isAlive()) {
+            anagramService.rebuildSignatures(progress -> {
+            });
+        }
+        inserter.join();
+
+        for (int i = 0; i < words; i++) {
+            assertThat(anagramService.getAnagrams(letters(i) + "ab")).contains(letters(i) + "ba");
+        }
+    }
+
+    @Test
+    public void testRebuildSignatures_keepsTheBloomFilterOfTheDictionary() {
+        AnagramService anagramService =
+                new AnagramService(new BloomFilteredAnagramDictionary(new InMemoryAnagramDictionary(), 1_000, 0.01));
+        anagramService.areAnagrams("evil", "vile");
+
+        anagramService.rebuildSignatures(progress -> {
+        });
+        anagramService.getAnagrams("nonexistenceword");
+
+        BloomFilteredAnagramDictionary.FilterStatistics statistics = anagramService.getFilterStatistics().orElseThrow();
+        assertThat(statistics.filteredLookups()).isEqualTo(1);
+        assertThat(anagramService.getAnagrams("live")).containsOnly("evil", "vile");
+    }
+
+    private static String letters(int number) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('c' + number % 24));
+            number /= 24;
+        } while (number > 0);
+        return letters.toString();
+    }
+
+}
@@ -0,0 +1,312 @@
+package io.beyonnex.service.cluster;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.dictionary.BloomFilteredAnagramDictionary;
+import io.beyonnex.service.error.FindrException;
+import io.beyonnex.service.statistics.GroupStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ClusterAnagramDictionaryTest {
+
+    private static ClusterNode startNode() throws IOException {
+        return new ClusterNode(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    /**
+     * Returns a word whose letters are a different multiset for every number, so no two numbers share a signature.
+     */
+    private static String letters(int number) {
+        return "b".repeat(number / 24 + 1) + (char) ('c' + number % 24);
+    }
+
+    private static void closeAll(List<ClusterNode> nodes) throws IOException {
+        for (ClusterNode node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    public void testCluster_routesSignaturesToTheirOwningNodes() throws IOException {
+        List<ClusterNode> nodes = List.of(startNode(), startNode(), startNode());
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(
+                nodes.stream().map(ClusterNode::getAddress).toList())) {
+            AnagramService anagramService = new AnagramService(dictionary);
+
+            assertThat(anagramService.areAnagrams("evil", "vile")).isTrue();
+            assertThat(anagramService.areAnagrams("evil", "live")).isTrue();
+            assertThat(anagramService.areAnagrams("silent", "listen")).isTrue();
+            assertThat(anagramService.areAnagrams("restful", "fluster")).isTrue();
+            assertThat(anagramService.areAnagrams("cheater", "teacher")).isTrue();
+
+            assertThat(anagramService.getAnagrams("evil")).containsOnly("vile", "live");
+            assertThat(anagramService.getAnagrams("listen")).containsOnly("silent");
+            assertThat(anagramService.getAnagrams("nonexistenceword")).isEmpty();
+
+            assertThat(dictionary.size()).isEqualTo(4);
+            assertThat(nodes.stream().mapToInt(ClusterNode::size).sum()).isEqualTo(4);
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_bulkLookupFansOutToAllNodes() throws IOException {
+        List<ClusterNode> nodes = List.of(startNode(), startNode(), startNode());
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(
+                nodes.stream().map(ClusterNode::getAddress).toList())) {
+            AnagramService anagramService = new AnagramService(dictionary);
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String word = "word" + letters(i);
+                anagramService.areAnagrams(word, new StringBuilder(word).reverse().toString());
+                words.add(word);
+            }
+
+            Map<String, Set<String>> anagrams = anagramService.getAnagrams(words);
+
+            assertThat(anagrams).hasSize(200);
+            for (String word : words) {
+                assertThat(anagrams.get(word)).doesNotContain(word);
+            }
+            assertThat(anagrams.get(words.get(0))).contains(new StringBuilder(words.get(0)).reverse().toString());
+            for (ClusterNode node : nodes) {
+                assertThat(node.size()).isGreaterThan(0);
+            }
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_joiningNodeTakesOverItsRangesWithoutLosingGroups() throws IOException {
+        List<ClusterNode> nodes = new ArrayList<>(List.of(startNode(), startNode()));
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(
+                nodes.stream().map(ClusterNode::getAddress).toList())) {
+            AnagramService anagramService = new AnagramService(dictionary);
+            for (int i = 0; i < 300; i++) {
+                anagramService.areAnagrams("group" + letters(i), letters(i) + "group");
+            }
+            assertThat(dictionary.size()).isEqualTo(300);
+
+            ClusterNode joining = startNode();
+            nodes.add(joining);
+            int moved = dictionary.join(joining.getAddress());
+
+            assertThat(moved).isGreaterThan(0);
+            assertThat(joining.size()).isEqualTo(moved);
+            assertThat(dictionary.size()).isEqualTo(300);
+            for (int i = 0; i < 300; i++) {
+                assertThat(anagramService.getAnagrams("group" + letters(i))).containsOnly(letters(i) + "group");
+            }
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_requestFailsWhenTheNodeDoesNotAnswerInTime() throws IOException {
+        try (ServerSocket silentNode = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), silentNode.getLocalPort());
+
+            assertThrows(UncheckedIOException.class,
+                    () -> new ClusterAnagramDictionary(List.of(address), Duration.ofMillis(200)));
+        }
+    }
+
+    @Test
+    public void testCluster_closingANodeClosesItsConnections() throws IOException {
+        ClusterNode node = startNode();
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(List.of(node.getAddress()))) {
+            dictionary.add("eilv", "evil");
+            node.close();
+
+            assertThrows(UncheckedIOException.class, () -> dictionary.get("eilv"));
+            assertThrows(UncheckedIOException.class, () -> dictionary.get("eilv"));
+        }
+    }
+
+    @Test
+    public void testCluster_otherRoutersFollowAJoin() throws IOException {
+        List<ClusterNode> nodes = new ArrayList<>(List.of(startNode(), startNode()));
+        List<InetSocketAddress> addresses = nodes.stream().map(ClusterNode::getAddress).toList();
+        try (ClusterAnagramDictionary joiningRouter = new ClusterAnagramDictionary(addresses);
+             ClusterAnagramDictionary otherRouter = new ClusterAnagramDictionary(addresses)) {
+            AnagramService otherService = new AnagramService(otherRouter);
+            for (int i = 0; i < 100; i++) {
+                otherService.areAnagrams("group" + letters(i), letters(i) + "group");
+            }
+
+            ClusterNode joining = startNode();
+            nodes.add(joining);
+            joiningRouter.join(joining.getAddress());
+
+            for (int i = 0; i < 100; i++) {
+                assertThat(otherService.getAnagrams("group" + letters(i))).containsOnly(letters(i) + "group");
+            }
+            for (int i = 100; i < 200; i++) {
+                otherService.areAnagrams("group" + letters(i), letters(i) + "group");
+            }
+            int totalSize = nodes.stream().mapToInt(ClusterNode::size).sum();
+            assertThat(totalSize).isEqualTo(200);
+            assertThat(joiningRouter.size()).isEqualTo(200);
+            assertThat(joining.size()).isGreaterThan(0);
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_failedJoinKeepsAllGroups() throws IOException {
+        List<ClusterNode> nodes = List.of(startNode(), startNode());
+        try (ServerSocket failingNode = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(
+                     nodes.stream().map(ClusterNode::getAddress).toList())) {
+            AnagramService anagramService = new AnagramService(dictionary);
+            for (int i = 0; i < 300; i++) {
+                anagramService.areAnagrams("group" + letters(i), letters(i) + "group");
+            }
+            Thread.ofVirtual().start(() -> {
+                try {
+                    failingNode.accept().close();
+                } catch (IOException ignored) {
+                    // the test fails on the missing groups instead
+                }
+            });
+
+            assertThrows(UncheckedIOException.class, () -> dictionary.join(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), failingNode.getLocalPort())));
+
+            assertThat(dictionary.size()).isEqualTo(300);
+            for (int i = 0; i < 300; i++) {
+                assertThat(anagramService.getAnagrams("group" + letters(i))).containsOnly(letters(i) + "group");
+            }
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_visitsAndMovesGroupsInPages() throws IOException {
+        List<ClusterNode> nodes = new ArrayList<>(List.of(startNode()));
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(
+                nodes.stream().map(ClusterNode::getAddress).toList())) {
+            int groupCount = 3 * ClusterAnagramDictionary.SCAN_PAGE_SIZE + 1;
+            for (int i = 0; i < groupCount; i++) {
+                dictionary.add(letters(i), letters(i));
+            }
+            ClusterNode joining = startNode();
+            nodes.add(joining);
+            int moved = dictionary.join(joining.getAddress());
+
+            Map<String, Set<String>> visited = new HashMap<>();
+            int[] visits = new int[1];
+            dictionary.forEach((signature, group) -> {
+                visited.put(signature, group);
+                visits[0]++;
+            });
+
+            assertThat(moved).isGreaterThan(ClusterAnagramDictionary.SCAN_PAGE_SIZE);
+            assertThat(visits[0]).isEqualTo(groupCount);
+            assertThat(visited).hasSize(groupCount);
+            assertThat(nodes.stream().mapToInt(ClusterNode::size).sum()).isEqualTo(groupCount);
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_pagesOfLargeGroupsStayWithinAFrame() throws IOException {
+        List<ClusterNode> nodes = new ArrayList<>(List.of(startNode()));
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(
+                nodes.stream().map(ClusterNode::getAddress).toList())) {
+            // three groups of about 6 MiB each, so they do not fit into one frame together
+            String padding = "a".repeat(1_000);
+            List<String> signatures = List.of(letters(0), letters(1), letters(2));
+            for (String signature : signatures) {
+                for (int i = 0; i < 6_000; i++) {
+                    dictionary.add(signature, signature + i + padding);
+                }
+            }
+
+            Map<String, Integer> visited = new HashMap<>();
+            dictionary.forEach((signature, group) -> visited.put(signature, group.size()));
+            ClusterNode joining = startNode();
+            nodes.add(joining);
+            dictionary.join(joining.getAddress());
+
+            assertThat(visited.keySet()).containsOnly(signatures.toArray(String[]::new));
+            assertThat(visited.values()).containsOnly(6_000);
+            assertThat(nodes.stream().mapToInt(ClusterNode::size).sum()).isEqualTo(3);
+        } finally {
+            closeAll(nodes);
+        }
+    }
+
+    @Test
+    public void testCluster_cannotBeRebuiltWithoutATarget() throws IOException {
+        ClusterNode node = startNode();
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(List.of(node.getAddress()))) {
+            AnagramService anagramService = new AnagramService(dictionary);
+            anagramService.areAnagrams("evil", "vile");
+
+            assertThrows(FindrException.class, () -> anagramService.rebuildSignatures(progress -> {
+            }));
+            assertThat(anagramService.getAnagrams("evil")).containsOnly("vile");
+        } finally {
+            node.close();
+        }
+    }
+
+    @Test
+    public void testCluster_cannotBeWrappedInABloomFilter() throws IOException {
+        ClusterNode node = startNode();
+        try (ClusterAnagramDictionary dictionary = new ClusterAnagramDictionary(List.of(node.getAddress()))) {
+            assertThrows(FindrException.class, () -> new BloomFilteredAnagramDictionary(dictionary, 1_000, 0.01));
+        } finally {
+            node.close();
+        }
+    }
+
+    @Test
+    public void testCluster_statisticsAreCombinedFromTheNodes() throws IOException {
+        List<ClusterNode> nodes = new ArrayList<>(List.of(startNode(), startNode()));
+        List<InetSocketAddress> addresses = nodes.stream().map(ClusterNode::getAddress).toList();
+        try (ClusterAnagramDictionary writingRouter = new ClusterAnagramDictionary(addresses);
+             ClusterAnagramDictionary readingRouter = new ClusterAnagramDictionary(addresses)) {
+            AnagramService writingService = new AnagramService(writingRouter);
+            AnagramService readingService = new AnagramService(readingRouter);
+            for (int i = 0; i < 100; i++) {
+                writingService.areAnagrams("group" + letters(i), letters(i) + "group");
+            }
+            writingService.areAnagrams("evil", "vile");
+            writingService.areAnagrams("evil", "live");
+
+            ClusterNode joining = startNode();
+            nodes.add(joining);
+            writingRouter.join(joining.getAddress());
+            GroupStatistics statistics = readingService.getStatistics(1);
+
+            assertThat(statistics.groups()).isEqualTo(101);
+            assertThat(statistics.originals()).isEqualTo(203);
+            assertThat(statistics.largestGroups()).containsOnly(new GroupStatistics.GroupSize("eilv", 3));
+            assertThat(statistics.groupSizes().get(2)).isEqualTo(100L);
+        } finally {
+            closeAll(nodes);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.beyonnex.service.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ClusterProtocolTest {
+
+    private static DataInputStream frame(int length, byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(length);
+        out.writeInt(1);
+        out.writeByte(ClusterProtocol.STATUS_OK);
+        out.write(payload);
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testReadFrame_rejectsLengthsBeyondTheLimit() throws IOException {
+        DataInputStream oversized = frame(ClusterProtocol.MAX_FRAME_LENGTH + 1, new byte[0]);
+        DataInputStream negative = frame(-1, new byte[0]);
+
+        assertThrows(IOException.class, () -> ClusterProtocol.readFrame(oversized));
+        assertThrows(IOException.class, () -> ClusterProtocol.readFrame(negative));
+    }
+
+    @Test
+    public void testReadStrings_rejectsCountsBeyondThePayload() throws IOException {
+        byte[] payload = ClusterProtocol.payload(out -> out.writeInt(Integer.MAX_VALUE));
+        ClusterProtocol.Frame frame = ClusterProtocol.readFrame(frame(payload.length + 5, payload));
+
+        assertThrows(IOException.class, () -> ClusterProtocol.readStrings(frame.payload()));
+    }
+
+    @Test
+    public void testReadStrings_readsWhatWasWritten() throws IOException {
+        byte[] payload = ClusterProtocol.payload(out -> ClusterProtocol.writeStrings(out, List.of("evil", "vile")));
+        ClusterProtocol.Frame frame = ClusterProtocol.readFrame(frame(payload.length + 5, payload));
+
+        List<String> strings = ClusterProtocol.readStrings(frame.payload());
+        assertThat(strings).containsOnly("evil", "vile");
+    }
+}
@@ -0,0 +1,118 @@
+package io.beyonnex.service.dictionary;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.error.FindrException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.beyonnex.service.error.FindrException.INVALID_BLOOM_FILTER_ERROR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BloomFilteredAnagramDictionaryTest {
+
+    @Test
+    public void testFilter_hasNoFalseNegativesAndKeepsTheFalsePositiveRate() {
+        SignatureBloomFilter filter = new SignatureBloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).parallel().forEach(i -> filter.put("present" + i));
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("present" + i)).isTrue();
+        }
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("absent" + i)).count();
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    public void testFilter_rejectsInvalidConfiguration() {
+        assertThrows(FindrException.class, () -> new SignatureBloomFilter(0, 0.01), INVALID_BLOOM_FILTER_ERROR);
+        assertThrows(FindrException.class, () -> new SignatureBloomFilter(100, 0), INVALID_BLOOM_FILTER_ERROR);
+        assertThrows(FindrException.class, () -> new SignatureBloomFilter(100, 1), INVALID_BLOOM_FILTER_ERROR);
+    }
+
+    @Test
+    public void testGetAnagrams_missesAreAnsweredByTheFilter() {
+        BloomFilteredAnagramDictionary dictionary =
+                new BloomFilteredAnagramDictionary(new InMemoryAnagramDictionary(), 1_000, 0.001);
+        AnagramService anagramService = new AnagramService(dictionary);
+
+        anagramService.areAnagrams("evil", "vile");
+
+        assertThat(anagramService.getAnagrams("live")).containsOnly("evil", "vile");
+        assertThat(anagramService.getAnagrams("nonexistenceword")).isEmpty();
+        assertThat(anagramService.getAnagrams(List.of("listen", "silent", "evil")).get("evil")).containsOnly("vile");
+
+        BloomFilteredAnagramDictionary.FilterStatistics statistics = dictionary.getFilterStatistics();
+        assertThat(statistics.passedLookups()).isEqualTo(2);
+        assertThat(statistics.filteredLookups()).isEqualTo(2);
+        assertThat(statistics.falsePositives()).isEqualTo(0);
+
+        BloomFilteredAnagramDictionary.FilterStatistics serviceStatistics =
+                anagramService.getFilterStatistics().orElseThrow();
+        assertThat(serviceStatistics.filteredLookups()).isEqualTo(2);
+        boolean unfilteredServiceHasStatistics = new AnagramService().getFilterStatistics().isPresent();
+        assertThat(unfilteredServiceHasStatistics).isFalse();
+    }
+
+    @Test
+    public void testFilter_rejectsCorruptBlockAndHashCounts() {
+        assertThrows(IOException.class, () -> SignatureBloomFilter.readFrom(filterHeader(0, 3)));
+        assertThrows(IOException.class, () -> SignatureBloomFilter.readFrom(filterHeader(Integer.MAX_VALUE, 3)));
+        assertThrows(IOException.class, () -> SignatureBloomFilter.readFrom(filterHeader(1, 0)));
+        assertThrows(IOException.class, () -> SignatureBloomFilter.readFrom(filterHeader(1, 17)));
+    }
+
+    private static DataInputStream filterHeader(int blockCount, int hashCount) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(blockCount);
+        out.writeInt(hashCount);
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testFilter_isCreatedOverExistingGroups() {
+        InMemoryAnagramDictionary delegate = new InMemoryAnagramDictionary();
+        delegate.add("eilv", "evil");
+
+        BloomFilteredAnagramDictionary dictionary = new BloomFilteredAnagramDictionary(delegate, 100, 0.01);
+
+        assertThat(dictionary.get("eilv")).containsOnly("evil");
+    }
+
+    @Test
+    public void testSnapshot_restoresGroupsAndFilter() throws IOException {
+        Path snapshot = Files.createTempFile("anagrams", ".snapshot");
+        try {
+            AnagramService anagramService = new AnagramService(
+                    new BloomFilteredAnagramDictionary(new InMemoryAnagramDictionary(), 1_000, 0.01));
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                words.add("word" + "x".repeat(i));
+                anagramService.areAnagrams(words.get(i), "x".repeat(i) + "drow");
+            }
+            anagramService.saveSnapshot(snapshot);
+
+            AnagramDictionary restored = DictionarySnapshot.read(snapshot);
+            AnagramService restoredService = new AnagramService(restored);
+
+            assertThat(restored).isInstanceOf(BloomFilteredAnagramDictionary.class);
+            assertThat(restored.size()).isEqualTo(100);
+            for (int i = 0; i < 100; i++) {
+                assertThat(restoredService.getAnagrams(words.get(i))).containsOnly("x".repeat(i) + "drow");
+            }
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.beyonnex.service.dictionary;
+
+import io.beyonnex.service.replacements.ModeType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DictionarySnapshotTest {
+
+    @Test
+    public void testSnapshot_restoresGroupsAndModes() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-snapshots");
+        try {
+            InMemoryAnagramDictionary dictionary = new InMemoryAnagramDictionary();
+            dictionary.add("eilv", "evil");
+            dictionary.add("eilv", "vile");
+            Path snapshot = directory.resolve("dictionary.snapshot");
+
+            DictionarySnapshot.write(dictionary, Set.of(ModeType.LATIN, ModeType.MODERN), snapshot);
+            DictionarySnapshot.Contents contents = DictionarySnapshot.readContents(snapshot);
+
+            Set<String> group = contents.dictionary().get("eilv");
+            assertThat(group).containsOnly("evil", "vile");
+            assertThat(contents.modes()).containsOnly(ModeType.LATIN, ModeType.MODERN);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testSnapshot_failedWriteKeepsThePreviousSnapshot() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-snapshots");
+        try {
+            InMemoryAnagramDictionary dictionary = new InMemoryAnagramDictionary();
+            dictionary.add("eilv", "evil");
+            Path snapshot = directory.resolve("dictionary.snapshot");
+            DictionarySnapshot.write(dictionary, snapshot);
+
+            InMemoryAnagramDictionary failing = new InMemoryAnagramDictionary() {
+                @Override
+                public void forEach(BiConsumer<String, Set<String>> action) {
+                    action.accept("eilv", Set.of("vile"));
+                    throw new UncheckedIOException(new IOException("No space left on device"));
+                }
+            };
+            assertThrows(IOException.class, () -> DictionarySnapshot.write(failing, snapshot));
+
+            Set<String> group = DictionarySnapshot.read(snapshot).get("eilv");
+            assertThat(group).containsOnly("evil");
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.toList()).containsOnly(snapshot);
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,196 @@
+package io.beyonnex.service.export;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.dictionary.AnagramDictionary;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.error.FindrException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static io.beyonnex.service.error.FindrException.INVALID_SHARD_COUNT_ERROR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AnagramExporterTest {
+
+    @Test
+    public void testExport_writesOneJsonLinePerGroup() throws IOException {
+        AnagramService anagramService = new AnagramService();
+        anagramService.areAnagrams("evil", "vile");
+        anagramService.areAnagrams("Say \"hi\"", "hi, ya's");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnagramExporter.ExportResult result = anagramService.exportGroups(Channels.newChannel(out), ExportFormat.NDJSON);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(result.groups()).isEqualTo(2);
+        assertThat(result.bytes()).isEqualTo(out.size());
+        assertThat(lines).hasSize(2);
+        assertThat(lines.stream().filter(line -> line.startsWith("{\"signature\":\"eilv\",\"anagrams\":[")).count())
+                .isEqualTo(1);
+        assertThat(lines.stream().filter(line -> line.contains("\"Say \\\"hi\\\"\"")).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExport_writesLengthPrefixedBinaryRecords() throws IOException {
+        AnagramService anagramService = new AnagramService();
+        anagramService.areAnagrams("evil", "vile");
+        anagramService.areAnagrams("silent", "listen");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        anagramService.exportGroups(Channels.newChannel(out), ExportFormat.BINARY);
+
+        Map<String, Set<String>> groups = readBinary(ByteBuffer.wrap(out.toByteArray()));
+        assertThat(groups).isEqualTo(Map.of("eilv", Set.of("evil", "vile"), "eilnst", Set.of("silent", "listen")));
+    }
+
+    @Test
+    public void testExport_ignoresInsertsAfterTheSnapshotWasTaken() throws IOException {
+        InMemoryAnagramDictionary dictionary = new InMemoryAnagramDictionary();
+        dictionary.add("eilv", "evil");
+        AnagramDictionary snapshot = dictionary.snapshot();
+
+        dictionary.add("eilv", "vile");
+        dictionary.add("eilnst", "silent");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AnagramExporter(ExportFormat.BINARY).export(snapshot, Channels.newChannel(out));
+
+        assertThat(readBinary(ByteBuffer.wrap(out.toByteArray()))).isEqualTo(Map.of("eilv", Set.of("evil")));
+        assertThat(dictionary.get("eilv")).containsOnly("evil", "vile");
+    }
+
+    @Test
+    public void testExport_shardsGroupsOverSeveralFiles() throws IOException {
+        AnagramService anagramService = new AnagramService();
+        for (int i = 0; i < 1000; i++) {
+            String word = "b".repeat(i / 24 + 1) + (char) ('c' + i % 24);
+            anagramService.areAnagrams(word, new StringBuilder(word).reverse().toString());
+        }
+
+        Path directory = Files.createTempDirectory("anagram-export");
+        try {
+            AnagramExporter.ExportResult result = anagramService.exportGroups(directory, "groups", ExportFormat.NDJSON, 4);
+
+            assertThat(result.groups()).isEqualTo(1000);
+            Set<String> exported = new HashSet<>();
+            long lines = 0;
+            for (int shard = 0; shard < 4; shard++) {
+                List<String> shardLines = Files.readAllLines(directory.resolve(String.format("groups-%05d.ndjson", shard)));
+                assertThat(shardLines).isNotEmpty();
+                lines += shardLines.size();
+                exported.addAll(shardLines);
+            }
+            assertThat(lines).isEqualTo(1000);
+            assertThat(exported).hasSize(1000);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testExport_walksTheDictionaryOnceForAllShards() throws IOException {
+        InMemoryAnagramDictionary groups = new InMemoryAnagramDictionary();
+        for (int i = 0; i < 100; i++) {
+            groups.add("group" + i, "original" + i);
+        }
+        int[] walks = new int[1];
+        AnagramDictionary dictionary = new AnagramDictionary() {
+            @Override
+            public int add(String signature, String original) {
+                return groups.add(signature, original);
+            }
+
+            @Override
+            public Set<String> get(String signature) {
+                return groups.get(signature);
+            }
+
+            @Override
+            public int size() {
+                return groups.size();
+            }
+
+            @Override
+            public void forEach(BiConsumer<String, Set<String>> action) {
+                walks[0]++;
+                groups.forEach(action);
+            }
+        };
+
+        Path directory = Files.createTempDirectory("anagram-export");
+        try {
+            AnagramExporter.ExportResult result =
+                    new AnagramExporter(ExportFormat.BINARY).exportSharded(dictionary, directory, "groups", 8);
+
+            assertThat(result.groups()).isEqualTo(100);
+            assertThat(walks[0]).isEqualTo(1);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static Map<String, Set<String>> readBinary(ByteBuffer in) {
+        Map<String, Set<String>> groups = new HashMap<>();
+        while (in.hasRemaining()) {
+            int recordEnd = in.getInt() + in.position();
+            String signature = readString(in);
+            Set<String> group = new HashSet<>();
+            for (int i = in.getInt(); i > 0; i--) {
+                group.add(readString(in));
+            }
+            assertThat(in.position()).isEqualTo(recordEnd);
+            groups.put(signature, group);
+        }
+        return groups;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testExport_rejectsShardCountsBelowOne() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-export");
+        try {
+            AnagramExporter exporter = new AnagramExporter(ExportFormat.NDJSON);
+            InMemoryAnagramDictionary dictionary = new InMemoryAnagramDictionary();
+
+            FindrException exception = assertThrows(FindrException.class,
+                    () -> exporter.exportSharded(dictionary, directory, "groups", 0));
+
+            assertThat(exception.getMessage()).isEqualTo(String.format(INVALID_SHARD_COUNT_ERROR, 0));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.toList()).isEmpty();
+            }
+        } finally {
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.beyonnex.service.statistics;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.replacements.ModeType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnagramStatisticsTest {
+
+    @Test
+    public void testStatistics_areMaintainedOnEveryInsert() {
+        AnagramService anagramService = new AnagramService();
+
+        anagramService.areAnagrams("evil", "vile");
+        anagramService.areAnagrams("live", "veil");
+        anagramService.areAnagrams("silent", "listen");
+        anagramService.areAnagrams("cheater", "cheater");
+
+        GroupStatistics statistics = anagramService.getStatistics(2);
+
+        assertThat(statistics.groups()).isEqualTo(3);
+        assertThat(statistics.originals()).isEqualTo(7);
+        assertThat(statistics.largestGroups()).containsExactly(
+                new GroupStatistics.GroupSize("eilv", 4),
+                new GroupStatistics.GroupSize("eilnst", 2));
+        assertThat(statistics.signatureLengths()).isEqualTo(Map.of(4, 1L, 6, 1L, 7, 1L));
+        assertThat(statistics.groupSizes()).isEqualTo(Map.of(1, 1L, 2, 1L, 4, 1L));
+    }
+
+    @Test
+    public void testLargestGroups_matchAFullWalkOfTheDictionary() {
+        StatisticsAnagramDictionary dictionary = new StatisticsAnagramDictionary(new InMemoryAnagramDictionary(), 10);
+        Map<String, Integer> expectedSizes = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            String signature = "s" + (int) Math.abs(random.nextGaussian() * 200);
+            if (dictionary.add(signature, "original" + i) > 0) {
+                expectedSizes.merge(signature, 1, Integer::sum);
+            }
+        }
+
+        List<Integer> largestSizes = dictionary.getStatistics(10).largestGroups().stream()
+                .map(GroupStatistics.GroupSize::size)
+                .toList();
+        List<Integer> expectedLargestSizes = expectedSizes.values().stream()
+                .sorted(Comparator.reverseOrder())
+                .limit(10)
+                .toList();
+
+        assertThat(largestSizes).isEqualTo(expectedLargestSizes);
+        assertThat(dictionary.getStatistics(0).groups()).isEqualTo(expectedSizes.size());
+    }
+
+    @Test
+    public void testStatistics_countExistingGroupsWhenWrapped() {
+        InMemoryAnagramDictionary delegate = new InMemoryAnagramDictionary();
+        delegate.add("eilv", "evil");
+        delegate.add("eilv", "vile");
+
+        StatisticsAnagramDictionary dictionary = new StatisticsAnagramDictionary(delegate);
+        dictionary.add("eilv", "live");
+
+        GroupStatistics statistics = dictionary.getStatistics(1);
+        assertThat(statistics.originals()).isEqualTo(3);
+        assertThat(statistics.largestGroups()).containsExactly(new GroupStatistics.GroupSize("eilv", 3));
+    }
+
+    @Test
+    public void testStatistics_followTheRebuiltDictionary() {
+        AnagramService anagramService = new AnagramService();
+        anagramService.areAnagrams("wccc", "vkkk");
+        assertThat(anagramService.getStatistics(1).groups()).isEqualTo(2);
+
+        anagramService.activateMode(ModeType.MODERN);
+        anagramService.rebuildSignatures(progress -> {
+        });
+
+        assertThat(anagramService.getStatistics(1).groups()).isEqualTo(1);
+        assertThat(anagramService.getStatistics(1).largestGroups())
+                .containsExactly(new GroupStatistics.GroupSize("kkkw", 2));
+    }
+}
@@ -0,0 +1,285 @@
+package io.beyonnex.service.tenant;
+
+import io.beyonnex.service.AnagramService;
+import io.beyonnex.service.dictionary.BloomFilteredAnagramDictionary;
+import io.beyonnex.service.dictionary.InMemoryAnagramDictionary;
+import io.beyonnex.service.error.FindrException;
+import io.beyonnex.service.replacements.ModeType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TenantRegistryTest {
+
+    private static final Duration NEVER_IDLE = Duration.ofHours(1);
+
+    @Test
+    public void testTenants_areIsolated() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(100_000, 1_000_000, QuotaPolicy.REJECT))) {
+            registry.withTenant("alpha", service -> service.areAnagrams("evil", "vile"));
+            registry.withTenant("beta", service -> {
+                service.activateMode(ModeType.MODERN);
+                return service.areAnagrams("silent", "listen");
+            });
+
+            Set<String> alphaAnagrams = registry.withTenant("alpha", service -> service.getAnagrams("evil"));
+            Set<String> betaAnagrams = registry.withTenant("beta", service -> service.getAnagrams("evil"));
+            Set<ModeType> alphaModes = registry.withTenant("alpha", AnagramService::getActiveModes);
+
+            assertThat(alphaAnagrams).containsOnly("vile");
+            assertThat(betaAnagrams).isEmpty();
+            assertThat(alphaModes).isEmpty();
+            assertThat(registry.getLoadedTenants()).containsOnly("alpha", "beta");
+            assertThat(registry.getTotalFootprint())
+                    .isEqualTo(registry.getFootprint("alpha") + registry.getFootprint("beta"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_rejectsInsertsBeyondItsQuota() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(1_000, 1_000_000, QuotaPolicy.REJECT))) {
+            FindrException exception = assertThrows(FindrException.class, () ->
+                    registry.withTenant("alpha", service -> {
+                        for (int i = 0; i < 100; i++) {
+                            service.areAnagrams(letters(i), letters(i));
+                        }
+                        return null;
+                    }));
+
+            assertThat(exception.getMessage()).isEqualTo("Tenant 'alpha' exceeds its memory quota of 1000 bytes");
+            assertThat(registry.getFootprint("alpha")).isLessThanOrEqualTo(1_000L);
+            boolean betaAnagrams = registry.withTenant("beta", service -> service.areAnagrams("evil", "vile"));
+            assertThat(betaAnagrams).isTrue();
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenants_idleTenantsAreEvictedWhenTheTotalIsReached() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory,
+                limits(1_200, 1_500, QuotaPolicy.EVICT_IDLE_TENANTS))) {
+            fill(registry, "alpha");
+            fill(registry, "beta");
+
+            assertThat(registry.getLoadedTenants()).containsOnly("beta");
+            assertThat(registry.getTotalFootprint()).isLessThanOrEqualTo(1_500L);
+            assertThat(Files.exists(directory.resolve("alpha.snapshot"))).isTrue();
+            Set<String> alphaAnagrams = registry.withTenant("alpha", service -> service.getAnagrams("bc"));
+            assertThat(alphaAnagrams).containsOnly("cb");
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenants_rejectInsertsWhenTheTotalIsReached() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(1_200, 1_500, QuotaPolicy.REJECT))) {
+            fill(registry, "alpha");
+
+            assertThrows(FindrException.class, () -> fill(registry, "beta"));
+            assertThat(registry.getLoadedTenants()).containsOnly("alpha", "beta");
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_isNotLoadedWhenItsSnapshotExceedsTheTotal() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(1_200, 1_500, QuotaPolicy.REJECT))) {
+            fill(registry, "alpha");
+            registry.close();
+            fill(registry, "beta");
+
+            assertThrows(FindrException.class, () ->
+                    registry.withTenant("alpha", service -> service.getAnagrams("bc")));
+            assertThat(registry.getLoadedTenants()).containsOnly("beta");
+            assertThat(registry.getTotalFootprint()).isEqualTo(registry.getFootprint("beta"));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenants_footprintsStayConsistentUnderConcurrentUse() throws Exception {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory,
+                limits(1_200, 4_000, QuotaPolicy.EVICT_IDLE_TENANTS))) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread;
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            fill(registry, "tenant-" + (offset + i) % 8);
+                        } catch (FindrException e) {
+                            // a quota was reached while the other loaded tenants were in use
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            executor.shutdown();
+
+            long loadedFootprint = registry.getLoadedTenants().stream().mapToLong(registry::getFootprint).sum();
+            assertThat(registry.getTotalFootprint()).isEqualTo(loadedFootprint);
+            assertThat(registry.getTotalFootprint()).isLessThanOrEqualTo(4_000L);
+            Set<String> anagrams = registry.withTenant("tenant-0", service -> service.getAnagrams("bc"));
+            assertThat(anagrams).containsOnly("cb");
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_isReloadedFromItsSnapshotWithItsModes() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(100_000, 1_000_000, QuotaPolicy.REJECT))) {
+            registry.withTenant("alpha", service -> {
+                service.activateMode(ModeType.MODERN);
+                return service.areAnagrams("evil", "vile");
+            });
+            long footprint = registry.getFootprint("alpha");
+
+            assertThat(registry.unloadIdleTenants()).isEqualTo(0);
+            registry.close();
+            assertThat(registry.getLoadedTenants()).isEmpty();
+            assertThat(registry.getTotalFootprint()).isEqualTo(0L);
+
+            Set<String> alphaAnagrams = registry.withTenant("alpha", service -> service.getAnagrams("vile"));
+            Set<ModeType> alphaModes = registry.withTenant("alpha", AnagramService::getActiveModes);
+
+            assertThat(alphaAnagrams).containsOnly("evil");
+            assertThat(alphaModes).containsOnly(ModeType.MODERN);
+            assertThat(registry.getFootprint("alpha")).isEqualTo(footprint);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_keepsItsModesAcrossARestart() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        TenantLimits limits = limits(100_000, 1_000_000, QuotaPolicy.REJECT);
+        try {
+            try (TenantRegistry registry = new TenantRegistry(directory, limits)) {
+                registry.withTenant("alpha", service -> {
+                    service.activateMode(ModeType.MODERN);
+                    return service.areAnagrams("vase", "zawe");
+                });
+            }
+            try (TenantRegistry registry = new TenantRegistry(directory, limits)) {
+                Set<ModeType> alphaModes = registry.withTenant("alpha", AnagramService::getActiveModes);
+                Set<String> alphaAnagrams = registry.withTenant("alpha", service -> service.getAnagrams("wase"));
+
+                assertThat(alphaModes).containsOnly(ModeType.MODERN);
+                assertThat(alphaAnagrams).containsOnly("vase", "zawe");
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_keepsItsBloomFilterWhenUnloaded() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(100_000, 1_000_000, QuotaPolicy.REJECT))) {
+            new AnagramService(new BloomFilteredAnagramDictionary(new InMemoryAnagramDictionary(), 1_000, 0.01))
+                    .saveSnapshot(directory.resolve("alpha.snapshot"));
+            registry.withTenant("alpha", service -> service.areAnagrams("evil", "vile"));
+
+            registry.close();
+            Set<String> alphaAnagrams = registry.withTenant("alpha", service -> service.getAnagrams("vile"));
+            boolean filtered = registry.withTenant("alpha", service -> service.getFilterStatistics().isPresent());
+
+            assertThat(alphaAnagrams).containsOnly("evil");
+            assertThat(filtered).isTrue();
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_quotaIsEnforcedAfterARebuild() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(2_500, 1_000_000, QuotaPolicy.REJECT))) {
+            fill(registry, "alpha");
+            long footprint = registry.getFootprint("alpha");
+
+            registry.withTenant("alpha", service -> service.rebuildSignatures(progress -> {
+            }));
+
+            assertThat(registry.getFootprint("alpha")).isEqualTo(footprint);
+            assertThat(registry.getTotalFootprint()).isEqualTo(footprint);
+            assertThrows(FindrException.class, () ->
+                    registry.withTenant("alpha", service -> {
+                        for (int i = 3; i < 100; i++) {
+                            service.areAnagrams(letters(i), letters(i));
+                        }
+                        return null;
+                    }));
+            assertThat(registry.getFootprint("alpha")).isLessThanOrEqualTo(2_500L);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTenant_idsAreValidated() throws IOException {
+        Path directory = Files.createTempDirectory("anagram-tenants");
+        try (TenantRegistry registry = new TenantRegistry(directory, limits(1_000, 1_000, QuotaPolicy.REJECT))) {
+            assertThrows(FindrException.class, () -> registry.withTenant("../alpha", service -> null));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void fill(TenantRegistry registry, String tenantId) {
+        registry.withTenant(tenantId, service -> {
+            for (int i = 0; i < 3; i++) {
+                service.areAnagrams(letters(i), new StringBuilder(letters(i)).reverse().toString());
+            }
+            return null;
+        });
+    }
+
+    private static TenantLimits limits(long bytesPerTenant, long totalBytes, QuotaPolicy policy) {
+        return new TenantLimits(bytesPerTenant, totalBytes, policy, NEVER_IDLE);
+    }
+
+    private static String letters(int i) {
+        return "b".repeat(i / 24 + 1) + (char) ('c' + i % 24);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}